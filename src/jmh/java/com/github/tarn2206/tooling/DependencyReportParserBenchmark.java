@@ -0,0 +1,59 @@
+package com.github.tarn2206.tooling;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Feeds the {@code dependencies} report to the parser in the chunk size Gradle writes to the standard output.
+ * The fixture is repeated to get multi-megabyte reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencyReportParserBenchmark
+{
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({ "1", "10" })
+    private int copies;
+
+    private byte[] report;
+
+    @Setup
+    public void setUp()
+    {
+        var fixture = Fixtures.read(Fixtures.DEPENDENCIES_REPORT);
+        report = new byte[fixture.length * copies];
+        for (var i = 0; i < copies; i++)
+        {
+            System.arraycopy(fixture, 0, report, i * fixture.length, fixture.length);
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole)
+    {
+        try (var parser = new DependencyReportParser(blackhole::consume))
+        {
+            for (var off = 0; off < report.length; off += CHUNK_SIZE)
+            {
+                parser.write(report, off, Math.min(CHUNK_SIZE, report.length - off));
+            }
+        }
+    }
+}
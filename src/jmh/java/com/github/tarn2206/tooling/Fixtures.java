@@ -0,0 +1,62 @@
+package com.github.tarn2206.tooling;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The committed files in {@code src/jmh/resources/fixtures}, so the benchmarks run offline. The dependencies report is
+ * in {@code src/test/resources/fixtures}, shared with the tests.
+ */
+final class Fixtures
+{
+    /** The {@code dependencies} report of a five project Spring Boot build, about 340 KB. */
+    static final String DEPENDENCIES_REPORT = "dependencies-report.txt";
+    /** About 2,000 versions with milestones, release candidates and snapshots. */
+    static final String MAVEN_METADATA = "maven-metadata.xml";
+
+    private Fixtures() {}
+
+    static byte[] read(String name)
+    {
+        try (var in = Objects.requireNonNull(Fixtures.class.getResourceAsStream("/fixtures/" + name), name))
+        {
+            return in.readAllBytes();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The canned {@code maven-metadata.xml} files served by {@link StubMavenRepository}, in the Maven repository layout.
+     * They are in {@code src/test/resources/repository}, shared with the tests.
+     */
+    static Path repository()
+    {
+        try
+        {
+            return Path.of(Objects.requireNonNull(Fixtures.class.getResource("/repository"), "repository").toURI());
+        }
+        catch (URISyntaxException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static MavenMetadata metadata()
+    {
+        try
+        {
+            return MavenMetadata.parse(new ByteArrayInputStream(read(MAVEN_METADATA)));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
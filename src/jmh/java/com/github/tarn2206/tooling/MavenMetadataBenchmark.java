@@ -0,0 +1,54 @@
+package com.github.tarn2206.tooling;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tarn2206.AppSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing a large {@code maven-metadata.xml} and selecting the latest stable version from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MavenMetadataBenchmark
+{
+    private byte[] xml;
+    private MavenMetadata metadata;
+    private AppSettings settings;
+
+    @Setup
+    public void setUp()
+    {
+        xml = Fixtures.read(Fixtures.MAVEN_METADATA);
+        metadata = Fixtures.metadata();
+        settings = new AppSettings();
+        settings.setUnstablePatterns("alpha, beta, -M, incubator, rc, snapshot");
+    }
+
+    @Benchmark
+    public MavenMetadata parse() throws IOException
+    {
+        return MavenMetadata.parse(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public String getLatestVersion()
+    {
+        return MavenUtils.getLatestVersion(metadata, "software.amazon.awssdk", settings);
+    }
+}
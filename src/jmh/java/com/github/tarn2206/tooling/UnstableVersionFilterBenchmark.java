@@ -0,0 +1,70 @@
+package com.github.tarn2206.tooling;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Filters every version of the metadata fixture with the default patterns and with long pattern lists,
+ * including regex tokens and per-group overrides.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnstableVersionFilterBenchmark
+{
+    private static final String DEFAULT_PATTERNS = "alpha, beta, -M, incubator, rc, snapshot";
+
+    @Param({ "0", "200" })
+    private int extraPatterns;
+
+    private List<String> versions;
+    private UnstableVersionFilter filter;
+
+    @Setup
+    public void setUp()
+    {
+        versions = Fixtures.metadata().versions();
+        var unstable = new StringBuilder(DEFAULT_PATTERNS);
+        var allowed = new StringBuilder();
+        for (var i = 0; i < extraPatterns; i++)
+        {
+            unstable.append(i % 10 == 0 ? ", /-nightly" + i + "\\.\\d+/" : ", preview" + i);
+            if (i % 4 == 0) allowed.append("com.example.group").append(i).append(": rc, beta; ");
+        }
+        filter = UnstableVersionFilter.compile(unstable.toString(), allowed.toString());
+    }
+
+    @Benchmark
+    public void isStable(Blackhole blackhole)
+    {
+        for (var version : versions)
+        {
+            blackhole.consume(filter.isStable("software.amazon.awssdk", version));
+        }
+    }
+
+    @Benchmark
+    public void isStableWithGroupOverride(Blackhole blackhole)
+    {
+        for (var version : versions)
+        {
+            blackhole.consume(filter.isStable("com.example.group0.core", version));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.tarn2206.tooling;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.tarn2206.AppSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update checks against {@link StubMavenRepository}, no network needed. {@code checkAll} is the time to check all
+ * artifacts the way a refresh does, {@code checkOne} samples the latency of single checks under concurrent load
+ * for the percentiles. The metrics printed at the end are those of all {@code checkAll} iterations.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class UpdateCheckLoadBenchmark
+{
+    @Param({ "1000", "10000" })
+    private int artifacts;
+
+    @Param({ "0", "20" })
+    private int latencyMillis;
+
+    @Param({ "0", "0.02" })
+    private double serverErrorRate;
+
+    @Param({ "16" })
+    private int maxConcurrentChecks;
+
+    private StubMavenRepository repository;
+    private AppSettings settings;
+    private RefreshMetrics metrics;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * The dependencies of one refresh, created again before each iteration of {@code checkAll} only.
+     */
+    @State(Scope.Benchmark)
+    public static class Refresh
+    {
+        private List<Dependency> dependencies;
+
+        @Setup(Level.Iteration)
+        public void createDependencies(UpdateCheckLoadBenchmark benchmark)
+        {
+            dependencies = new ArrayList<>(benchmark.artifacts);
+            for (var i = 0; i < benchmark.artifacts; i++)
+            {
+                dependencies.add(newDependency(i));
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startRepository() throws IOException
+    {
+        var root = Fixtures.repository();
+        repository = new StubMavenRepository(root)
+                .withFallback(root.resolve("com/google/guava/guava/maven-metadata.xml"))
+                .withLatency(latencyMillis, latencyMillis / 2)
+                .withErrors(0, serverErrorRate);
+
+        settings = new AppSettings();
+        settings.setRepos(List.of(new AppSettings.Repo(true, "Stub", repository.getUrl())));
+        settings.setUnstablePatterns("alpha, beta, -M, incubator, rc, snapshot");
+        settings.setMaxConcurrentChecks(maxConcurrentChecks);
+        settings.setMaxRequestsPerSecond(0);
+        settings.setCacheTtlMinutes(0); // every check goes to the repository
+        metrics = new RefreshMetrics();
+    }
+
+    private static Dependency newDependency(int i)
+    {
+        return new Dependency("com.example.load" + i % 100, "artifact-" + i, "1.0");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopRepository()
+    {
+        System.out.println();
+        System.out.println(repository.getRequestCount() + " requests served");
+        metrics.finish();
+        System.out.println(metrics.getSummary());
+        repository.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public List<Dependency> checkAll(Refresh refresh)
+    {
+        MavenUtils.checkForUpdates(refresh.dependencies, settings, metrics, dependency -> {}).join();
+        return refresh.dependencies;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    @Threads(16)
+    public Dependency checkOne()
+    {
+        var i = Math.floorMod(next.getAndIncrement(), artifacts);
+        return MavenUtils.checkForUpdate(newDependency(i), settings, RefreshMetrics.NONE).join();
+    }
+}
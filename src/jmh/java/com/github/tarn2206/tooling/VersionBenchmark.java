@@ -0,0 +1,70 @@
+package com.github.tarn2206.tooling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing and ordering the versions of the metadata fixture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VersionBenchmark
+{
+    private List<String> versions;
+    private List<Version> parsed;
+
+    @Setup
+    public void setUp()
+    {
+        versions = Fixtures.metadata().versions();
+        parsed = new ArrayList<>(versions.stream().map(Version::parse).toList());
+        Collections.shuffle(parsed, new Random(2206));
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole)
+    {
+        for (var version : versions)
+        {
+            blackhole.consume(Version.parse(version));
+        }
+    }
+
+    @Benchmark
+    public int compare()
+    {
+        var newer = 0;
+        for (var i = 1; i < parsed.size(); i++)
+        {
+            if (parsed.get(i).compareTo(parsed.get(i - 1)) > 0) newer++;
+        }
+        return newer;
+    }
+
+    @Benchmark
+    public List<Version> sort()
+    {
+        var copy = new ArrayList<>(parsed);
+        Collections.sort(copy);
+        return copy;
+    }
+}
@@ -7,7 +7,6 @@ import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.util.xmlb.XmlSerializerUtil;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -22,6 +21,15 @@ public class AppSettings implements PersistentStateComponent<AppSettings>
     private List<Repo> repos;
     private boolean ignoreUnstable = true;
     private String unstablePatterns;
+    private String allowedUnstablePatterns;
+    private boolean singleBuild = true;
+    private int cacheTtlMinutes = 60;
+    private boolean hedgeRequests;
+    private int hedgeDelayMillis = 500;
+    private int maxConcurrentChecks = 16;
+    private int maxRequestsPerSecond = 20;
+    private boolean backgroundCheck;
+    private int backgroundCheckHours = 6;
 
     public static AppSettings getInstance()
     {
@@ -51,12 +59,87 @@ public class AppSettings implements PersistentStateComponent<AppSettings>
     }
 
     @Getter @Setter
-    @AllArgsConstructor
     @NoArgsConstructor
     public static class Repo
     {
         private boolean active;
         private String name;
+        private RepoType type = RepoType.REMOTE;
         private String url;
+        private String includeGroups;
+        private String excludeGroups;
+        private int connectTimeout = 10;
+        private int readTimeout = 30;
+
+        public Repo(boolean active, String name, String url)
+        {
+            this.active = active;
+            this.name = name;
+            this.url = url;
+        }
+
+        /**
+         * @param connectTimeout seconds, at least 1
+         */
+        public void setConnectTimeout(int connectTimeout)
+        {
+            this.connectTimeout = Math.max(1, connectTimeout);
+        }
+
+        /**
+         * @param readTimeout seconds to wait for the whole response, at least 1
+         */
+        public void setReadTimeout(int readTimeout)
+        {
+            this.readTimeout = Math.max(1, readTimeout);
+        }
+
+        public boolean isRemote()
+        {
+            return type == null || type == RepoType.REMOTE;
+        }
+
+        /**
+         * @param group the group of a module, matched against the comma separated group prefixes
+         */
+        public boolean acceptsGroup(String group)
+        {
+            if (StringUtils.isNotBlank(includeGroups) && !matchesAny(group, includeGroups)) return false;
+            return StringUtils.isBlank(excludeGroups) || !matchesAny(group, excludeGroups);
+        }
+
+        private static boolean matchesAny(String group, String prefixes)
+        {
+            for (var prefix : prefixes.split(","))
+            {
+                prefix = StringUtils.trimToEmpty(prefix);
+                if (!prefix.isEmpty() && (group.equals(prefix) || group.startsWith(prefix.endsWith(".") ? prefix : prefix + ".")))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public enum RepoType
+    {
+        REMOTE("Remote"),
+        GRADLE_CACHE("Gradle Cache"),
+        MAVEN_LOCAL("Maven Local"),
+        INDEX("Index");
+
+        private final String label;
+
+        RepoType(String label)
+        {
+            this.label = label;
+        }
+
+        @Override
+        public String toString()
+        {
+            return label;
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.github.tarn2206.actions;
+
+import java.nio.file.Path;
+
+import com.github.tarn2206.tooling.UpdateReportWriter;
+import com.github.tarn2206.ui.DependenciesView;
+import com.intellij.icons.AllIcons.ToolbarDecorator;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+public class ExportAction extends AnAction
+{
+    private final DependenciesView view;
+
+    public ExportAction(DependenciesView view)
+    {
+        super("Export...", "Export the results as JSON, CSV or SARIF", ToolbarDecorator.Export);
+        this.view = view;
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e)
+    {
+        var project = e.getProject();
+        var descriptor = new FileSaverDescriptor("Export Dependency Updates", "The format follows the file extension",
+                                                 "json", "csv", "sarif");
+        var dialog = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project);
+        var baseDir = project != null && project.getBasePath() != null ? Path.of(project.getBasePath()) : null;
+        var wrapper = dialog.save(baseDir, "dependency-updates.json");
+        if (wrapper == null) return;
+
+        var file = wrapper.getFile();
+        var format = UpdateReportWriter.Format.of(file.getName());
+        view.export(file, format != null ? format : UpdateReportWriter.Format.JSON);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread()
+    {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e)
+    {
+        e.getPresentation().setEnabled(view.isIdle() && view.hasResult());
+    }
+}
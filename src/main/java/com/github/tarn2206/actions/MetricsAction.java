@@ -0,0 +1,38 @@
+package com.github.tarn2206.actions;
+
+import com.github.tarn2206.ui.DependenciesView;
+import com.github.tarn2206.ui.MetricsDialog;
+import com.intellij.icons.AllIcons.Actions;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import org.jetbrains.annotations.NotNull;
+
+public class MetricsAction extends AnAction
+{
+    private final DependenciesView view;
+
+    public MetricsAction(DependenciesView view)
+    {
+        super("Refresh Metrics", "Show the timings of the last refresh", Actions.Profile);
+        this.view = view;
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e)
+    {
+        new MetricsDialog(e.getProject(), view.getMetrics()).show();
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread()
+    {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(AnActionEvent e)
+    {
+        e.getPresentation().setEnabled(view.getMetrics() != null);
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.tarn2206.cli;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.github.tarn2206.AppSettings;
+import com.github.tarn2206.tooling.Dependency;
+import com.github.tarn2206.tooling.GradleHelper;
+import com.github.tarn2206.tooling.MavenUtils;
+import com.github.tarn2206.tooling.MetadataCache;
+import com.github.tarn2206.tooling.ProjectInfo;
+import com.github.tarn2206.tooling.RefreshMetrics;
+import com.github.tarn2206.tooling.UpdateReportWriter;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.diagnostic.Logger;
+import org.gradle.tooling.GradleConnector;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Resolves and checks the dependencies of Gradle builds without opening a project, e.g., in CI:
+ * <pre>
+ * idea dependencyUpdates [--format text|json|csv|sarif] [--output file] project-dir...
+ * </pre>
+ * The repositories and filters come from the settings of the IDE installation. The exit code is 0 when every build
+ * is checked and 1 otherwise.
+ */
+public class DependencyUpdatesStarter implements ApplicationStarter
+{
+    private static final Logger LOG = Logger.getInstance(DependencyUpdatesStarter.class);
+    private static final String USAGE = "Usage: dependencyUpdates [--format text|json|csv|sarif] [--output file] project-dir...";
+
+    @Override
+    public int getRequiredModality()
+    {
+        return NOT_IN_EDT;
+    }
+
+    @Override
+    public void main(@NotNull List<String> args)
+    {
+        var exitCode = run(args.subList(1, args.size()));
+        // System.exit does not dispose the services, keep the metadata for the next run
+        MetadataCache.getInstance().save();
+        System.exit(exitCode);
+    }
+
+    private static int run(List<String> args)
+    {
+        File output = null;
+        UpdateReportWriter.Format format = null;
+        var projectDirs = new ArrayList<File>();
+        for (var i = 0; i < args.size(); i++)
+        {
+            var arg = args.get(i);
+            if ("--output".equals(arg) && i + 1 < args.size()) output = new File(args.get(++i));
+            else if ("--format".equals(arg) && i + 1 < args.size())
+            {
+                var value = args.get(++i);
+                format = UpdateReportWriter.Format.of(value);
+                if (format == null && !"text".equals(value)) return usage("Unknown format " + value);
+            }
+            else if (arg.startsWith("-")) return usage("Unknown option " + arg);
+            else projectDirs.add(new File(arg).getAbsoluteFile());
+        }
+        if (projectDirs.isEmpty()) return usage("No project directory");
+
+        try (var out = output != null ? new PrintStream(new FileOutputStream(output), false, UTF_8) : null)
+        {
+            var stream = out != null ? out : System.out;
+            var metrics = new RefreshMetrics();
+            var writer = format != null ? UpdateReportWriter.create(format, new OutputStreamWriter(stream, UTF_8),
+                                                                    projectDirs.size() == 1 ? projectDirs.get(0) : null)
+                                        : null;
+            if (writer != null) writer.setMetrics(metrics);
+            var exitCode = 0;
+            for (var dir : projectDirs)
+            {
+                var info = check(dir, metrics);
+                if (info == null) exitCode = 1;
+                else if (writer != null) write(writer, info, info.name());
+                else print(stream, info, "");
+            }
+            metrics.finish();
+            if (writer != null) writer.close();
+            else stream.flush();
+            return exitCode;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Cannot write " + (output != null ? output : "the report") + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int usage(String error)
+    {
+        System.err.println(error);
+        System.err.println(USAGE);
+        return 1;
+    }
+
+    /**
+     * @return {@code null} if the build cannot be resolved
+     */
+    private static ProjectInfo check(File projectDir, RefreshMetrics metrics)
+    {
+        var start = System.nanoTime();
+        try (var connection = GradleConnector.newConnector().forProjectDirectory(projectDir).connect())
+        {
+            metrics.record(RefreshMetrics.Phase.CONNECT, start);
+            var info = GradleHelper.getProjectInfo(connection, launcher -> {}, metrics);
+            start = System.nanoTime();
+            checkForUpdates(info, metrics);
+            metrics.record(RefreshMetrics.Phase.CHECK, start);
+            return info;
+        }
+        catch (Exception e)
+        {
+            LOG.warn(e);
+            System.err.println(projectDir + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Checks each module and version once, and copies the result to the other dependencies on it.
+     */
+    private static void checkForUpdates(ProjectInfo info, RefreshMetrics metrics)
+    {
+        var all = new ArrayList<Dependency>();
+        collect(info, all);
+
+        var checked = new HashMap<String, Dependency>();
+        var checkList = new ArrayList<Dependency>();
+        for (var dependency : all)
+        {
+            if (checked.putIfAbsent(key(dependency), dependency) == null) checkList.add(dependency);
+        }
+        MavenUtils.checkForUpdates(checkList, AppSettings.getInstance(), metrics, dependency -> {}).join();
+
+        for (var dependency : all)
+        {
+            var result = checked.get(key(dependency));
+            if (result != dependency)
+            {
+                dependency.setLatestVersion(result.getLatestVersion());
+                dependency.setError(result.getError());
+                dependency.setRepository(result.getRepository());
+            }
+        }
+    }
+
+    private static void collect(ProjectInfo info, List<Dependency> all)
+    {
+        if (info.dependencies() != null)
+        {
+            for (var dependency : info.dependencies())
+            {
+                if (dependency.hasGroup() && dependency.getVersion() != null) all.add(dependency);
+            }
+        }
+        info.children().forEach(child -> collect(child, all));
+    }
+
+    private static String key(Dependency dependency)
+    {
+        return dependency.getModuleId() + ":" + dependency.getVersion();
+    }
+
+    private static void print(PrintStream out, ProjectInfo info, String indent)
+    {
+        out.println(indent + info.name());
+        if (info.dependencies() != null)
+        {
+            for (var dependency : info.dependencies())
+            {
+                var line = new StringBuilder(indent).append("  ").append(dependency);
+                if (dependency.getLatestVersion() != null) line.append(" -> ").append(dependency.getLatestVersion());
+                else if (dependency.getError() != null) line.append(" - ").append(dependency.getError());
+                out.println(line);
+            }
+        }
+        info.children().forEach(child -> print(out, child, indent + "  "));
+    }
+
+    private static void write(UpdateReportWriter writer, ProjectInfo info, String path) throws IOException
+    {
+        writer.startProject(path, info.buildFile());
+        if (info.dependencies() != null)
+        {
+            for (var dependency : info.dependencies())
+            {
+                writer.write(dependency);
+            }
+        }
+        for (var child : info.children())
+        {
+            write(writer, child, path + ":" + child.name());
+        }
+    }
+}
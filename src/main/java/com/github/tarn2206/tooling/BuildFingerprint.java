@@ -0,0 +1,82 @@
+package com.github.tarn2206.tooling;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.zip.CRC32;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A checksum of the files that decide the dependencies of a Gradle project, compared between refreshes to find
+ * the projects that have to be resolved again.
+ */
+public class BuildFingerprint
+{
+    private static final Set<String> ROOT_FILES = Set.of("settings.gradle", "settings.gradle.kts", "build.gradle", "build.gradle.kts",
+                                                         "gradle.properties");
+    private static final String CATALOG_SUFFIX = ".versions.toml";
+
+    private BuildFingerprint() {}
+
+    /**
+     * @return {@code true} if a change of the file can change the resolved dependencies
+     */
+    public static boolean isBuildInput(String fileName)
+    {
+        return ROOT_FILES.contains(fileName) || isCatalog(fileName);
+    }
+
+    public static boolean isCatalog(String fileName)
+    {
+        return fileName.endsWith(CATALOG_SUFFIX);
+    }
+
+    /**
+     * The settings, build file, {@code gradle.properties} and version catalogs of the root project,
+     * a change in any of them can affect every project.
+     */
+    public static long ofRoot(File rootDir)
+    {
+        var crc = new CRC32();
+        for (var name : ROOT_FILES.stream().sorted().toList())
+        {
+            update(crc, new File(rootDir, name));
+        }
+        var catalogs = new File(rootDir, "gradle").listFiles((dir, name) -> name.endsWith(CATALOG_SUFFIX));
+        if (catalogs != null)
+        {
+            Arrays.sort(catalogs);
+            for (var catalog : catalogs)
+            {
+                update(crc, catalog);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * The build file and {@code gradle.properties} of a project.
+     */
+    public static long ofProject(File buildFile)
+    {
+        var crc = new CRC32();
+        update(crc, buildFile);
+        update(crc, new File(buildFile.getParentFile(), "gradle.properties"));
+        return crc.getValue();
+    }
+
+    private static void update(CRC32 crc, File file)
+    {
+        crc.update(file.getName().getBytes(UTF_8));
+        try
+        {
+            crc.update(file.isFile() ? Files.readAllBytes(file.toPath()) : new byte[] { -1 });
+        }
+        catch (IOException e)
+        {
+            crc.update(-1);
+        }
+    }
+}
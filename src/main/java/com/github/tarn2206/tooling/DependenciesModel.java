@@ -0,0 +1,41 @@
+package com.github.tarn2206.tooling;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Tooling API view of the model built by the {@code init/dependencies.gradle} init script.
+ * One instance per Gradle project, the whole build is fetched in a single configuration pass.
+ */
+public interface DependenciesModel
+{
+    String getName();
+
+    /** The Gradle path of the project, e.g., {@code :web:api} */
+    String getPath();
+
+    File getBuildFile();
+
+    /** The time the init script spent on the dependencies of this project, without its children */
+    long getResolveNanos();
+
+    List<DependenciesModel> getChildren();
+
+    List<DependencyModel> getDependencies();
+
+    interface DependencyModel
+    {
+        String getGroup();
+
+        String getName();
+
+        String getConfiguration();
+
+        /** The declared version, {@code null} when the version comes from a platform or a constraint. */
+        String getVersion();
+
+        String getResolvedVersion();
+
+        String getError();
+    }
+}
@@ -1,7 +1,5 @@
 package com.github.tarn2206.tooling;
 
-import java.util.Objects;
-
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,9 +9,13 @@ public class Dependency
     private final String group;
     private final String name;
     private final String version;
+    private final ModuleId moduleId;
     private String latestVersion;
     private String status;
     private String error;
+    private String repository;
+    /** The Gradle configuration that declares the dependency, {@code null} if unknown */
+    private String configuration;
 
     public Dependency(String name)
     {
@@ -25,6 +27,7 @@ public class Dependency
         this.group = group;
         this.name = name;
         this.version = version != null && version.contains(" ") ? version.substring(0, version.indexOf(' ')) : version;
+        this.moduleId = new ModuleId(group, name);
     }
 
     public boolean hasGroup()
@@ -32,11 +35,6 @@ public class Dependency
         return group != null && !group.equals("project ");
     }
 
-    public boolean sameModule(Dependency o)
-    {
-        return o != null && Objects.equals(group, o.group) && Objects.equals(name, o.name);
-    }
-
     @Override
     public String toString()
     {
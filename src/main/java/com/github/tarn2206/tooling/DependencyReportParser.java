@@ -0,0 +1,188 @@
+package com.github.tarn2206.tooling;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parses the output of the {@code dependencies} task while Gradle writes it.
+ * Only first level lines inside the classpath and implementation blocks are decoded, everything else is skipped
+ * on the byte level.
+ */
+public class DependencyReportParser extends OutputStream
+{
+    private static final byte[][] BLOCKS = {
+        "compileclasspath - ".getBytes(UTF_8),
+        "runtimeclasspath - ".getBytes(UTF_8),
+        "implementation - ".getBytes(UTF_8)
+    };
+    private static final Pattern STRICTLY = Pattern.compile("\\{strictly (.*)}");
+    private static final int PREFIX_LENGTH = 5;
+
+    private final Consumer<Dependency> consumer;
+    private byte[] line = new byte[256];
+    private int length;
+    private boolean inBlock;
+    private String configuration;
+    private long parseNanos;
+
+    public DependencyReportParser(Consumer<Dependency> consumer)
+    {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void write(int b)
+    {
+        if (b == '\n')
+        {
+            endLine();
+        }
+        else
+        {
+            append((byte)b);
+        }
+    }
+
+    /**
+     * @return the time spent in this parser, not counting the time Gradle takes to produce the report
+     */
+    public long getParseNanos()
+    {
+        return parseNanos;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+        var start = System.nanoTime();
+        var end = off + len;
+        for (var i = off; i < end; i++)
+        {
+            if (b[i] == '\n')
+            {
+                endLine();
+            }
+            else
+            {
+                append(b[i]);
+            }
+        }
+        parseNanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public void close()
+    {
+        if (length > 0) endLine();
+    }
+
+    private void append(byte b)
+    {
+        if (length == line.length)
+        {
+            line = Arrays.copyOf(line, length * 2);
+        }
+        line[length++] = b;
+    }
+
+    private void endLine()
+    {
+        var end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        length = 0;
+
+        if (end > 0 && isLetter(line[0]) && isBlockHeader(end))
+        {
+            inBlock = true;
+            var nameEnd = 0;
+            while (nameEnd < end && line[nameEnd] != ' ') nameEnd++;
+            configuration = new String(line, 0, nameEnd, UTF_8);
+        }
+        else if (end == 0)
+        {
+            inBlock = false;
+        }
+        else if (inBlock && isFirstLevel(end))
+        {
+            var dependency = parseDependency(new String(line, PREFIX_LENGTH, end - PREFIX_LENGTH, UTF_8));
+            if (dependency != null)
+            {
+                dependency.setConfiguration(configuration);
+                consumer.accept(dependency);
+            }
+        }
+    }
+
+    private boolean isFirstLevel(int end)
+    {
+        return end > PREFIX_LENGTH
+               && (line[0] == '+' || line[0] == '\\')
+               && line[1] == '-' && line[2] == '-' && line[3] == '-' && line[4] == ' ';
+    }
+
+    private boolean isBlockHeader(int end)
+    {
+        for (var block : BLOCKS)
+        {
+            if (indexOfIgnoreCase(block, end) != -1) return true;
+        }
+        return false;
+    }
+
+    private int indexOfIgnoreCase(byte[] lowerCase, int end)
+    {
+        var last = end - lowerCase.length;
+        for (var i = 0; i <= last; i++)
+        {
+            var j = 0;
+            while (j < lowerCase.length && toLowerCase(line[i + j]) == lowerCase[j]) j++;
+            if (j == lowerCase.length) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isLetter(byte b)
+    {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z';
+    }
+
+    private static byte toLowerCase(byte b)
+    {
+        return b >= 'A' && b <= 'Z' ? (byte)(b + ('a' - 'A')) : b;
+    }
+
+    private static Dependency parseDependency(String s)
+    {
+        if (s.startsWith("project :")) return null;
+
+        var clean = s.indexOf('{') != -1 ? STRICTLY.matcher(s).replaceAll("$1") : s;
+        var a = clean.split(":");
+        if (a.length < 2) return null;
+
+        if (a.length > 2)
+        {
+            return new Dependency(a[0], a[1], a[2]);
+        }
+
+        var i = a[1].indexOf(" -> ");
+        if (i != -1)
+        {
+            var name = a[1].substring(0, i);
+            var version = a[1].substring(i + 4);
+            return new Dependency(a[0], name, version);
+        }
+
+        i = a[1].indexOf(" ");
+        if (i == -1)
+        {
+            return new Dependency(a[0], a[1], null);
+        }
+
+        var name = a[1].substring(0, i);
+        var d = new Dependency(a[0], name, null);
+        d.setError(a[1].substring(i + 1));
+        return "(n)".equals(d.getError()) ? null : d;
+    }
+}
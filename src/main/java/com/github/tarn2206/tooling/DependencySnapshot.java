@@ -0,0 +1,92 @@
+package com.github.tarn2206.tooling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The last complete result of a project, shown as soon as the tool window opens and revalidated in the background.
+ * It is kept in the project cache file of the IDE system directory, not in the project.
+ */
+@State(name = "DependenciesCheckerSnapshot", storages = @Storage(StoragePathMacros.CACHE_FILE))
+@Getter @Setter
+public class DependencySnapshot implements PersistentStateComponent<DependencySnapshot>
+{
+    private long savedAt;
+    private long rootFingerprint;
+    private ProjectEntry root;
+
+    public static DependencySnapshot getInstance(Project project)
+    {
+        return project.getService(DependencySnapshot.class);
+    }
+
+    @Override
+    public @Nullable DependencySnapshot getState()
+    {
+        return this;
+    }
+
+    @Override
+    public void loadState(@NotNull DependencySnapshot state)
+    {
+        XmlSerializerUtil.copyBean(state, this);
+    }
+
+    @Getter @Setter
+    @NoArgsConstructor
+    public static class ProjectEntry
+    {
+        private String name;
+        /** {@code null} if the project has no build file */
+        private String buildFile;
+        private long fingerprint;
+        private List<DependencyEntry> dependencies = new ArrayList<>();
+        private List<ProjectEntry> children = new ArrayList<>();
+    }
+
+    @Getter @Setter
+    @NoArgsConstructor
+    public static class DependencyEntry
+    {
+        private String group;
+        private String name;
+        private String version;
+        private String latestVersion;
+        private String error;
+        private String repository;
+        private String configuration;
+
+        public DependencyEntry(Dependency dependency)
+        {
+            this.group = dependency.getGroup();
+            this.name = dependency.getName();
+            this.version = dependency.getVersion();
+            this.latestVersion = dependency.getLatestVersion();
+            this.error = dependency.getError();
+            this.repository = dependency.getRepository();
+            this.configuration = dependency.getConfiguration();
+        }
+
+        public Dependency toDependency()
+        {
+            var dependency = new Dependency(group, name, version);
+            dependency.setLatestVersion(latestVersion);
+            dependency.setError(error);
+            dependency.setRepository(repository);
+            dependency.setConfiguration(configuration);
+            return dependency;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.tarn2206.tooling;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.externalSystem.util.ExternalSystemApiUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProjectConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.gradle.GradleManager;
+import org.jetbrains.plugins.gradle.settings.DistributionType;
+import org.jetbrains.plugins.gradle.settings.GradleSettingsListener;
+import org.jetbrains.plugins.gradle.settings.GradleSettingsListenerAdapter;
+import org.jetbrains.plugins.gradle.util.GradleConstants;
+
+/**
+ * Keeps Tooling API connections open between refreshes, so the same daemon is reused.
+ * Connections are closed when the project is disposed or when the Gradle settings change.
+ */
+public class GradleConnectionManager implements Disposable
+{
+    private static final Logger LOG = Logger.getInstance(GradleConnectionManager.class);
+    private final Project project;
+    private final Map<File, ProjectConnection> connections = new ConcurrentHashMap<>();
+
+    public GradleConnectionManager(Project project)
+    {
+        this.project = project;
+        project.getMessageBus().connect(this).subscribe(GradleSettingsListener.TOPIC, new GradleSettingsListenerAdapter()
+        {
+            @Override
+            public void onGradleHomeChange(@Nullable String oldPath, @Nullable String newPath, @NotNull String linkedProjectPath)
+            {
+                closeAll();
+            }
+
+            @Override
+            public void onGradleDistributionTypeChange(DistributionType currentValue, @NotNull String linkedProjectPath)
+            {
+                closeAll();
+            }
+
+            @Override
+            public void onServiceDirectoryPathChange(@Nullable String oldPath, @Nullable String newPath)
+            {
+                closeAll();
+            }
+        });
+    }
+
+    public static GradleConnectionManager getInstance(Project project)
+    {
+        return project.getService(GradleConnectionManager.class);
+    }
+
+    public ProjectConnection getConnection(File projectDirectory)
+    {
+        return connections.computeIfAbsent(projectDirectory, dir -> createConnector(dir).connect());
+    }
+
+    private GradleConnector createConnector(File projectDirectory)
+    {
+        var connector = GradleConnector.newConnector().forProjectDirectory(projectDirectory);
+        var manager = (GradleManager)ExternalSystemApiUtil.getManager(GradleConstants.SYSTEM_ID);
+        if (manager != null)
+        {
+            var executionSettingsProvider = manager.getExecutionSettingsProvider()
+                                                   .fun(new Pair<>(project, project.getBasePath()));
+            var gradleHome = executionSettingsProvider.getGradleHome();
+            if (gradleHome != null)
+            {
+                connector.useInstallation(new File(gradleHome));
+            }
+        }
+        return connector;
+    }
+
+    public void closeAll()
+    {
+        for (var dir : connections.keySet())
+        {
+            var connection = connections.remove(dir);
+            if (connection != null)
+            {
+                try
+                {
+                    connection.close();
+                }
+                catch (Exception e)
+                {
+                    LOG.warn("Cannot close connection to " + dir, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        closeAll();
+    }
+}
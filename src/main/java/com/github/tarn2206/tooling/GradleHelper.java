@@ -1,149 +1,232 @@
 package com.github.tarn2206.tooling;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Objects;
+import java.util.function.Consumer;
 
-import com.intellij.openapi.externalSystem.util.ExternalSystemApiUtil;
+import com.github.tarn2206.AppSettings;
+import com.github.tarn2206.tooling.RefreshMetrics.Phase;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectRootManager;
-import com.intellij.openapi.util.Pair;
-import org.apache.commons.lang3.StringUtils;
-import org.gradle.tooling.GradleConnector;
+import com.intellij.openapi.util.io.FileUtil;
+import org.gradle.tooling.BuildCancelledException;
+import org.gradle.tooling.ConfigurableLauncher;
+import org.gradle.tooling.GradleConnectionException;
+import org.gradle.tooling.ProjectConnection;
 import org.gradle.tooling.model.GradleProject;
-import org.jetbrains.plugins.gradle.GradleManager;
-import org.jetbrains.plugins.gradle.util.GradleConstants;
 
 public class GradleHelper
 {
+    private static final Logger LOG = Logger.getInstance(GradleHelper.class);
+    private static final String INIT_SCRIPT = "/init/dependencies.gradle";
+    private static File initScript;
+
     private GradleHelper() {}
 
-    public static ProjectInfo getProjectInfo(Project project)
+    public static ProjectInfo getProjectInfo(Project project, RefreshMetrics metrics)
     {
         if (project.getBasePath() == null) return null;
-        var connector = createConnector(project, new File(project.getBasePath()));
-        try (var connection = connector.connect())
+        var start = System.nanoTime();
+        var connection = GradleConnectionManager.getInstance(project).getConnection(new File(project.getBasePath()));
+        metrics.record(Phase.CONNECT, start);
+        if (AppSettings.getInstance().isSingleBuild())
         {
-            var builder = connection.model(GradleProject.class);
-            var projectSdk = ProjectRootManager.getInstance(project).getProjectSdk();
-            if (projectSdk != null && projectSdk.getHomePath() != null)
+            try
+            {
+                return getProjectInfo(connection, launcher -> setJavaHome(project, launcher), metrics);
+            }
+            catch (GradleConnectionException e)
             {
-                builder.setJavaHome(new File(projectSdk.getHomePath()));
+                if (!isModelFailure(e)) throw e;
+                LOG.warn("Dependencies model is not available, fallback to one build per project", rootCause(e));
             }
-            return getProjectInfo(builder.get());
         }
+
+        var builder = connection.model(GradleProject.class);
+        setJavaHome(project, builder);
+        start = System.nanoTime();
+        var model = builder.get();
+        metrics.record(Phase.MODEL, start);
+        return getProjectInfo(model);
+    }
+
+    /**
+     * Resolves the project structure and the dependencies of all projects in one build, without an IDE project.
+     */
+    public static ProjectInfo getProjectInfo(ProjectConnection connection, Consumer<ConfigurableLauncher<?>> configure, RefreshMetrics metrics)
+    {
+        var builder = connection.model(DependenciesModel.class)
+                                .withArguments("--init-script", getInitScript().getPath());
+        configure.accept(builder);
+        var start = System.nanoTime();
+        var model = builder.get();
+        metrics.record(Phase.MODEL, start);
+        start = System.nanoTime();
+        var info = getProjectInfo(model);
+        metrics.record(Phase.PARSE, start);
+        recordProjects(model, metrics);
+        return info;
+    }
+
+    /**
+     * The time of each project as measured by the init script, the configuration of the projects is not included.
+     */
+    private static void recordProjects(DependenciesModel model, RefreshMetrics metrics)
+    {
+        metrics.addProject(model.getPath(), model.getResolveNanos());
+        model.getChildren().forEach(child -> recordProjects(child, metrics));
     }
 
     private static ProjectInfo getProjectInfo(GradleProject gradleProject)
     {
         var children = gradleProject.getChildren().stream().map(GradleHelper::getProjectInfo).toList();
-        return new ProjectInfo(gradleProject.getName(), gradleProject.getBuildScript().getSourceFile(), children);
+        return new ProjectInfo(gradleProject.getName(), gradleProject.getBuildScript().getSourceFile(), children, null);
     }
 
-    public static List<Dependency> getDependencies(Project project, File projectDirectory)
+    private static ProjectInfo getProjectInfo(DependenciesModel model)
     {
-        var connector = createConnector(project, projectDirectory);
-        try (var connection = connector.connect(); var out = new ByteArrayOutputStream())
-        {
-            var buildLauncher = connection.newBuild();
-            var projectSdk = ProjectRootManager.getInstance(project).getProjectSdk();
-            if (projectSdk != null && projectSdk.getHomePath() != null)
-            {
-                buildLauncher.setJavaHome(new File(projectSdk.getHomePath()));
-            }
-            buildLauncher.forTasks("dependencies").setStandardOutput(out).run();
-            return parseDependencies(out.toString());
-        }
-        catch (IOException e)
-        {
-            throw new IllegalArgumentException(e);
-        }
+        var children = model.getChildren().stream().map(GradleHelper::getProjectInfo).toList();
+        return new ProjectInfo(model.getName(), model.getBuildFile(), children, getDependencies(model));
+    }
+
+    private static List<Dependency> getDependencies(DependenciesModel model)
+    {
+        return model.getDependencies().stream().map(GradleHelper::toDependency).toList();
+    }
+
+    private static Dependency toDependency(DependenciesModel.DependencyModel model)
+    {
+        var version = model.getVersion() != null ? model.getVersion() : model.getResolvedVersion();
+        var dependency = new Dependency(model.getGroup(), model.getName(), version);
+        dependency.setError(model.getError());
+        dependency.setConfiguration(model.getConfiguration());
+        return dependency;
     }
 
-    private static GradleConnector createConnector(Project project, File projectDirectory)
+    private static synchronized File getInitScript()
     {
-        var connector = GradleConnector.newConnector().forProjectDirectory(projectDirectory);
-        var manager = (GradleManager)ExternalSystemApiUtil.getManager(GradleConstants.SYSTEM_ID);
-        if (manager != null)
+        if (initScript == null || !initScript.exists())
         {
-            var executionSettingsProvider = manager.getExecutionSettingsProvider()
-                                                   .fun(new Pair<>(project, project.getBasePath()));
-            var gradleHome = executionSettingsProvider.getGradleHome();
-            if (gradleHome != null)
+            try (var in = Objects.requireNonNull(GradleHelper.class.getResourceAsStream(INIT_SCRIPT)))
             {
-                connector.useInstallation(new File(gradleHome));
+                var file = FileUtil.createTempFile("dependencies", ".gradle", true);
+                Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                initScript = file;
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException(e);
             }
         }
-        return connector;
+        return initScript;
+    }
+
+    public static List<Dependency> getDependencies(Project project, File projectDirectory, RefreshMetrics metrics)
+    {
+        return getDependencies(project, projectDirectory, metrics, dependency -> {});
     }
 
-    private static List<Dependency> parseDependencies(String source)
+    /**
+     * @param onResolved called for each dependency as soon as it is known, from the thread that reads the Gradle output
+     * when the dependencies come from the report. The tooling model answers all dependencies at once.
+     * @return all dependencies, the same instances as passed to {@code onResolved}
+     */
+    public static List<Dependency> getDependencies(Project project, File projectDirectory, RefreshMetrics metrics,
+                                                   Consumer<Dependency> onResolved)
     {
-        var list = new ArrayList<Dependency>();
-        try (var scanner = new Scanner(source))
+        var projectStart = System.nanoTime();
+        var connection = GradleConnectionManager.getInstance(project).getConnection(projectDirectory);
+        metrics.record(Phase.CONNECT, projectStart);
+        try
         {
-            var inBlock = false;
-            while (scanner.hasNext())
-            {
-                var line = scanner.nextLine();
-                inBlock = checkIsInBlock(line, inBlock);
-
-                if (inBlock && (line.startsWith("+--- ") || line.startsWith("\\--- "))) // only first level
-                {
-                    var dependency = parseDependency(line.substring(5));
-                    if (dependency != null && list.stream().noneMatch(e -> e.sameModule(dependency)))
-                    {
-                        list.add(dependency);
-                    }
-                }
-            }
+            var builder = connection.model(DependenciesModel.class)
+                                    .withArguments("--init-script", getInitScript().getPath(),
+                                                   "-PdependenciesChecker.recursive=false");
+            setJavaHome(project, builder);
+            var start = System.nanoTime();
+            var model = builder.get();
+            metrics.record(Phase.MODEL, start);
+            start = System.nanoTime();
+            var dependencies = getDependencies(model);
+            metrics.record(Phase.PARSE, start);
+            dependencies.forEach(onResolved);
+            return dependencies;
+        }
+        catch (GradleConnectionException e)
+        {
+            if (!isModelFailure(e)) throw e;
+            LOG.warn("Dependencies model is not available, fallback to dependencies task", rootCause(e));
+            return getReportedDependencies(project, connection, metrics, onResolved);
+        }
+        finally
+        {
+            metrics.recordProject(getProjectPath(project, projectDirectory), projectStart);
         }
-        return list;
     }
 
-    private static boolean checkIsInBlock(String line, boolean inBlock)
+    /**
+     * @return the directory relative to the root project in the form of a Gradle path, e.g., {@code :web:api}
+     */
+    private static String getProjectPath(Project project, File projectDirectory)
     {
-        if (StringUtils.containsAnyIgnoreCase(line,
-                "compileClasspath - ",
-                "runtimeClasspath - ",
-                "implementation - ")) return true;
-        if (line.isEmpty()) return false;
-        return inBlock;
+        var dir = projectDirectory.toPath().toAbsolutePath().normalize();
+        if (project.getBasePath() == null) return dir.toString();
+
+        var root = Path.of(project.getBasePath()).toAbsolutePath().normalize();
+        if (!dir.startsWith(root)) return dir.toString();
+        return ":" + FileUtil.toSystemIndependentName(root.relativize(dir).toString()).replace('/', ':');
     }
 
-    private static Dependency parseDependency(String s)
+    /**
+     * @return {@code true} unless the build was cancelled. Besides an unknown model, older Gradle versions fail in the
+     * init script or the model builder, wrapped in a {@code BuildException} or a plain {@link GradleConnectionException}.
+     * The dependencies task may still work then.
+     */
+    private static boolean isModelFailure(GradleConnectionException e)
     {
-        if (s.startsWith("project :")) return null;
+        return !(e instanceof BuildCancelledException);
+    }
 
-        var clean = s.replaceAll("\\{strictly (.*)}", "$1");
-        var a = clean.split(":");
-        if (a.length < 2) return null;
+    private static Throwable rootCause(Throwable e)
+    {
+        while (e.getCause() != null && e.getCause() != e) e = e.getCause();
+        return e;
+    }
 
-        if (a.length > 2)
+    private static List<Dependency> getReportedDependencies(Project project, ProjectConnection connection, RefreshMetrics metrics,
+                                                            Consumer<Dependency> onResolved)
+    {
+        var map = new LinkedHashMap<ModuleId, Dependency>();
+        var start = System.nanoTime();
+        try (var out = new DependencyReportParser(e ->
         {
-            return new Dependency(a[0], a[1], a[2]);
-        }
-
-        var i = a[1].indexOf(" -> ");
-        if (i != -1)
+            if (map.putIfAbsent(e.getModuleId(), e) == null) onResolved.accept(e);
+        }))
         {
-            var name = a[1].substring(0, i);
-            var version = a[1].substring(i + 4);
-            return new Dependency(a[0], name, version);
+            var buildLauncher = connection.newBuild();
+            setJavaHome(project, buildLauncher);
+            buildLauncher.forTasks("dependencies").setStandardOutput(out).run();
+            // the report is parsed while Gradle writes it, the parse time is not part of the build time
+            metrics.add(Phase.BUILD, System.nanoTime() - start - out.getParseNanos());
+            metrics.add(Phase.PARSE, out.getParseNanos());
         }
+        return new ArrayList<>(map.values());
+    }
 
-        i = a[1].indexOf(" ");
-        if (i == -1)
+    private static void setJavaHome(Project project, ConfigurableLauncher<?> launcher)
+    {
+        var projectSdk = ProjectRootManager.getInstance(project).getProjectSdk();
+        if (projectSdk != null && projectSdk.getHomePath() != null)
         {
-            return new Dependency(a[0], a[1], null);
+            launcher.setJavaHome(new File(projectSdk.getHomePath()));
         }
-
-        var name = a[1].substring(0, i);
-        var d = new Dependency(a[0], name, null);
-        d.setError(a[1].substring(i + 1));
-        return "(n)".equals(d.getError()) ? null : d;
     }
 }
@@ -0,0 +1,95 @@
+package com.github.tarn2206.tooling;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.tarn2206.AppSettings;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Finds the versions of a module that are in the Gradle cache ({@code files-2.1/group/name/version})
+ * or in the local maven repository ({@code group/path/name/version}).
+ * Only the directory of the module is listed, and it is listed again only when its modification time changes,
+ * so a refresh costs one {@code stat} per module instead of a walk over the whole cache.
+ */
+public class LocalRepository
+{
+    private static final Map<File, Listing> listings = new ConcurrentHashMap<>();
+
+    private LocalRepository() {}
+
+    /**
+     * @return the versions of the module, or {@code null} if the module is not in the repository
+     */
+    public static List<String> getVersions(AppSettings.Repo repo, ModuleId module)
+    {
+        var dir = getModuleDirectory(repo, module);
+        var lastModified = dir.lastModified();
+        if (lastModified == 0)
+        {
+            listings.remove(dir);
+            return null;
+        }
+
+        var listing = listings.get(dir);
+        if (listing == null || listing.lastModified != lastModified)
+        {
+            listing = new Listing(lastModified, list(dir, module, repo.getType() == AppSettings.RepoType.MAVEN_LOCAL));
+            listings.put(dir, listing);
+        }
+        return listing.versions;
+    }
+
+    public static File getModuleDirectory(AppSettings.Repo repo, ModuleId module)
+    {
+        var root = getRootDirectory(repo);
+        return repo.getType() == AppSettings.RepoType.MAVEN_LOCAL
+               ? new File(root, module.group().replace('.', File.separatorChar) + File.separator + module.name())
+               : new File(root, module.group() + File.separator + module.name());
+    }
+
+    /**
+     * @return the URL of the repository as a directory, or the default location when it is blank
+     */
+    public static File getRootDirectory(AppSettings.Repo repo)
+    {
+        var path = StringUtils.trimToEmpty(repo.getUrl());
+        if (path.startsWith("file:")) path = path.substring(5);
+        if (path.startsWith("~")) path = System.getProperty("user.home") + path.substring(1);
+        if (!path.isEmpty()) return new File(path);
+
+        if (repo.getType() == AppSettings.RepoType.MAVEN_LOCAL)
+        {
+            return new File(System.getProperty("user.home"), ".m2/repository");
+        }
+        var gradleUserHome = System.getenv("GRADLE_USER_HOME");
+        var home = StringUtils.isNotBlank(gradleUserHome) ? new File(gradleUserHome) : new File(System.getProperty("user.home"), ".gradle");
+        return new File(home, "caches/modules-2/files-2.1");
+    }
+
+    /**
+     * A version directory of the local maven repository counts only when it has the pom,
+     * failed downloads leave empty directories behind.
+     */
+    private static List<String> list(File dir, ModuleId module, boolean requirePom)
+    {
+        var versions = new ArrayList<String>();
+        var files = dir.listFiles(File::isDirectory);
+        if (files == null) return versions;
+
+        for (var file : files)
+        {
+            var version = file.getName();
+            if (!requirePom || new File(file, module.name() + "-" + version + ".pom").isFile())
+            {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+
+    private record Listing(long lastModified, List<String> versions) {}
+}
@@ -0,0 +1,74 @@
+package com.github.tarn2206.tooling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * The parts of {@code maven-metadata.xml} needed to find the latest version.
+ */
+public record MavenMetadata(String latest, String release, String lastUpdated, List<String> versions)
+{
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory()
+    {
+        var factory = XMLInputFactory.newDefaultFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Reads the {@code versioning} element in one pass, the document is never loaded as a whole.
+     */
+    public static MavenMetadata parse(InputStream in) throws IOException
+    {
+        String latest = null;
+        String release = null;
+        String lastUpdated = null;
+        var versions = new ArrayList<String>();
+        var inVersioning = false;
+        var inVersions = false;
+        try
+        {
+            var reader = FACTORY.createXMLStreamReader(in);
+            try
+            {
+                while (reader.hasNext())
+                {
+                    var event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT)
+                    {
+                        var name = reader.getLocalName();
+                        if (inVersions && "version".equals(name)) versions.add(reader.getElementText().trim());
+                        else if (!inVersioning) inVersioning = "versioning".equals(name);
+                        else if ("versions".equals(name)) inVersions = true;
+                        else if ("latest".equals(name)) latest = reader.getElementText().trim();
+                        else if ("release".equals(name)) release = reader.getElementText().trim();
+                        else if ("lastUpdated".equals(name)) lastUpdated = reader.getElementText().trim();
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT)
+                    {
+                        var name = reader.getLocalName();
+                        if ("versions".equals(name)) inVersions = false;
+                        else if ("versioning".equals(name)) inVersioning = false;
+                    }
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IOException("Invalid maven-metadata.xml", e);
+        }
+        return new MavenMetadata(latest, release, lastUpdated, versions);
+    }
+}
@@ -1,60 +1,476 @@
 package com.github.tarn2206.tooling;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.Socket;
 import java.net.URI;
-import java.net.URLConnection;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
-import java.util.regex.Pattern;
-import javax.net.ssl.HttpsURLConnection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.X509TrustManager;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedTrustManager;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.github.tarn2206.AppSettings;
 import com.intellij.openapi.diagnostic.Logger;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
 public class MavenUtils
 {
     private static final Logger LOG = Logger.getInstance(MavenUtils.class);
+    private static final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    /** One per repository, shared by the refreshes and the background checks with their own rates. */
+    private static final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private static final RepositoryRouter router = new RepositoryRouter();
+    private static final UpdateResultCache results = new UpdateResultCache();
 
     private MavenUtils() {}
 
-    public static void checkForUpdate(Dependency dependency, AppSettings settings)
+    /**
+     * Checks all dependencies with at most {@link AppSettings#getMaxConcurrentChecks()} lookups in flight,
+     * {@code onComplete} is called from a background thread as soon as each dependency is checked.
+     * Cancelling the result drops the dependencies not checked yet and cancels the lookups in flight.
+     */
+    public static CompletableFuture<Void> checkForUpdates(Collection<Dependency> dependencies, AppSettings settings, RefreshMetrics metrics,
+                                                          Consumer<Dependency> onComplete)
     {
-        var activeList = settings.getRepos().stream().filter(AppSettings.Repo::isActive).toList();
-        for (var repo : activeList)
+        var queue = new ConcurrentLinkedQueue<>(dependencies);
+        var inFlight = ConcurrentHashMap.<CompletableFuture<Dependency>>newKeySet();
+        var cancelled = new AtomicBoolean();
+        var n = Math.min(settings.getMaxConcurrentChecks(), dependencies.size());
+        var futures = new CompletableFuture<?>[n];
+        for (var i = 0; i < n; i++)
         {
-            try
+            futures[i] = checkNext(queue, inFlight, cancelled, settings, metrics, onComplete);
+        }
+        var all = CompletableFuture.allOf(futures);
+        all.whenComplete((v, error) ->
+        {
+            if (!all.isCancelled()) return;
+
+            cancelled.set(true);
+            queue.clear();
+            inFlight.forEach(e -> e.cancel(true));
+        });
+        return all;
+    }
+
+    private static CompletableFuture<Void> checkNext(Queue<Dependency> queue, Set<CompletableFuture<Dependency>> inFlight, AtomicBoolean cancelled,
+                                                     AppSettings settings, RefreshMetrics metrics, Consumer<Dependency> onComplete)
+    {
+        var dependency = queue.poll();
+        if (dependency == null || cancelled.get()) return CompletableFuture.completedFuture(null);
+
+        var check = checkForUpdate(dependency, settings, metrics);
+        inFlight.add(check);
+        if (cancelled.get()) check.cancel(true);
+        return check.whenComplete((result, error) -> inFlight.remove(check))
+                    .thenAccept(onComplete)
+                    .thenComposeAsync(v -> checkNext(queue, inFlight, cancelled, settings, metrics, onComplete));
+    }
+
+    /**
+     * The lookups are shared with the other open projects, a module is looked up once per cache TTL with the same
+     * repository settings, no matter which version is checked. Cancelling the result cancels the lookup when no other
+     * check waits for it.
+     *
+     * @param metrics receives the latency and size of each lookup, and the metadata cache hits
+     */
+    public static CompletableFuture<Dependency> checkForUpdate(Dependency dependency, AppSettings settings, RefreshMetrics metrics)
+    {
+        var key = dependency.getModuleId() + "|" + getSettingsKey(settings);
+        var ttl = TimeUnit.MINUTES.toMillis(settings.getCacheTtlMinutes());
+        var lookedUp = new AtomicBoolean();
+        var result = results.get(key, ttl, () ->
+        {
+            lookedUp.set(true);
+            return lookup(new Dependency(dependency.getGroup(), dependency.getName(), null), settings, metrics);
+        });
+        if (!lookedUp.get()) metrics.resultShared();
+        var checked = result.thenApply(e -> apply(e, dependency));
+        checked.whenComplete((e, error) ->
+        {
+            if (checked.isCancelled()) result.cancel(true);
+        });
+        return checked;
+    }
+
+    private static Dependency apply(UpdateResultCache.Result result, Dependency dependency)
+    {
+        dependency.setRepository(result.repository());
+        dependency.setError(result.error());
+        if (result.latestVersion() != null)
+        {
+            setLatestVersion(dependency, result.latestVersion());
+        }
+        return dependency;
+    }
+
+    /**
+     * The repositories and filters that decide the result of a lookup.
+     */
+    private static String getSettingsKey(AppSettings settings)
+    {
+        var key = new StringBuilder();
+        for (var repo : settings.getRepos())
+        {
+            if (!repo.isActive()) continue;
+            key.append(repo.getType()).append(' ').append(repo.getUrl()).append(' ')
+               .append(repo.getIncludeGroups()).append(' ').append(repo.getExcludeGroups()).append('|');
+        }
+        return key.append(settings.isIgnoreUnstable()).append('|').append(settings.getUnstablePatterns())
+                  .append('|').append(settings.getAllowedUnstablePatterns()).toString();
+    }
+
+    /**
+     * @param probe the module to look up, without a version, it gets the latest version of the first repository that has it
+     */
+    private static CompletableFuture<UpdateResultCache.Result> lookup(Dependency probe, AppSettings settings, RefreshMetrics metrics)
+    {
+        var dependency = probe;
+        var activeList = settings.getRepos().stream()
+                                 .filter(e -> e.isActive() && e.acceptsGroup(dependency.getGroup()))
+                                 .toList();
+        var repos = router.route(dependency.getModuleId(), activeList);
+        if (repos.size() < activeList.size())
+        {
+            dependency.setError(getStatusText(404));
+        }
+        var repositoryLookup = new RepositoryLookup(dependency, settings, metrics, repos);
+        var lookup = repositoryLookup.start();
+        var result = lookup.thenApply(e -> toResult(e, repositoryLookup.isDefinite()));
+        result.whenComplete((e, error) ->
+        {
+            if (result.isCancelled()) lookup.cancel(true);
+        });
+        return result;
+    }
+
+    private static UpdateResultCache.Result toResult(Dependency probe, boolean definite)
+    {
+        return new UpdateResultCache.Result(probe.getLatestVersion(), probe.getRepository(), probe.getError(), definite);
+    }
+
+    private static void setMetadata(Dependency dependency, AppSettings.Repo repo, MavenMetadata metadata, AppSettings settings)
+    {
+        if (repo.isRemote())
+        {
+            router.found(dependency.getModuleId(), repo);
+        }
+        dependency.setRepository(repo.getName());
+        // the repository has the module, even when none of its versions passes the filters
+        dependency.setError(null);
+        var latestVersion = getLatestVersion(metadata, dependency.getGroup(), settings);
+        if (latestVersion != null)
+        {
+            dependency.setLatestVersion(latestVersion);
+        }
+    }
+
+    /**
+     * @return {@code true} if the repository answered that it does not have the module, the other errors may pass
+     */
+    private static boolean handleError(Dependency dependency, AppSettings.Repo repo, Throwable error)
+    {
+        var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof StatusException e)
+        {
+            dependency.setError(getStatusText(e.statusCode));
+            LOG.warn(e.getMessage());
+            return e.statusCode == 404;
+        }
+        if (cause instanceof HttpTimeoutException || cause instanceof TimeoutException)
+        {
+            dependency.setError("Timeout");
+            LOG.warn(repo.getName() + ": " + cause.getMessage());
+        }
+        else if (cause instanceof URISyntaxException || cause instanceof IllegalArgumentException)
+        {
+            dependency.setError("Invalid URL");
+            LOG.warn(repo.getName() + ": " + cause.getMessage());
+        }
+        else if (cause instanceof IOException)
+        {
+            dependency.setError(cause instanceof ConnectException ? "Cannot connect" : StringUtils.defaultIfBlank(cause.getMessage(), "I/O error"));
+            LOG.warn(repo.getName() + ": " + cause);
+        }
+        else if (!(cause instanceof CancellationException))
+        {
+            dependency.setError(StringUtils.defaultIfBlank(cause.getMessage(), cause.getClass().getSimpleName()));
+            LOG.error(cause.getMessage(), cause);
+        }
+        return false;
+    }
+
+    /**
+     * @return the metadata from the cache when it is younger than the configured TTL, otherwise revalidates or
+     * downloads it. Completes with a {@link StatusException} if the repository does not have it.
+     */
+    private static CompletableFuture<MavenMetadata> getMetadata(AppSettings.Repo repo, Dependency dependency, AppSettings settings,
+                                                                RefreshMetrics metrics)
+    {
+        if (!repo.isRemote())
+        {
+            var start = System.nanoTime();
+            var lookup = repo.getType() == AppSettings.RepoType.INDEX
+                         ? RepositoryIndex.get(repo, settings).thenApply(index -> getIndexedMetadata(index, dependency, repo))
+                         : CompletableFuture.supplyAsync(() -> getLocalMetadata(repo, dependency));
+            return lookup.whenComplete((metadata, error) -> metrics.recordRequest(repo.getName(), start, 0, error != null));
+        }
+
+        var url = combine(repo.getUrl(), dependency.getGroup().replace('.', '/') + "/" + dependency.getName() + "/maven-metadata.xml");
+        HttpRequest request;
+        try
+        {
+            request = newRequest(url, repo);
+        }
+        catch (URISyntaxException | IllegalArgumentException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        var cache = MetadataCache.getInstance();
+        var key = request.uri().toString();
+        var cached = cache.get(key);
+        if (cached != null && !cached.isExpired(settings.getCacheTtlMinutes()))
+        {
+            metrics.cacheHit();
+            return CompletableFuture.completedFuture(cached.toMetadata());
+        }
+
+        if (cached != null)
+        {
+            var builder = HttpRequest.newBuilder(request, (name, value) -> true);
+            if (cached.getEtag() != null) builder.header("If-None-Match", cached.getEtag());
+            if (cached.getLastModified() != null) builder.header("If-Modified-Since", cached.getLastModified());
+            request = builder.build();
+        }
+
+        var client = getClient(repo);
+        var delay = rateLimiters.computeIfAbsent(repo.getUrl(), e -> new RateLimiter()).reserve(settings.getMaxRequestsPerSecond());
+        var finalRequest = request;
+        var sentAt = new AtomicLong();
+        var received = new AtomicLong();
+        Supplier<CompletableFuture<HttpResponse<InputStream>>> sendNow = () ->
+        {
+            sentAt.set(System.nanoTime()); // the rate limit delay is not part of the latency
+            return client.sendAsync(finalRequest, HttpResponse.BodyHandlers.ofInputStream());
+        };
+        var send = delay == 0
+                   ? sendNow.get()
+                   : CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS))
+                                      .thenCompose(v -> sendNow.get());
+        var body = new AtomicReference<InputStream>();
+        var result = send.thenApply(response ->
+        {
+            body.set(response.body());
+            try (var in = new CountingInputStream(response.body(), received))
             {
-                var url = combine(repo.getUrl(), dependency.getGroup().replace('.', '/') + "/" + dependency.getName() + "/maven-metadata.xml");
-                var connection = (HttpURLConnection)openConnection(url);
-                if (connection.getResponseCode() == 200)
+                if (response.statusCode() == 304 && cached != null)
                 {
-                    var latestVersion = getLatestVersion(connection.getInputStream(), settings);
-                    if (latestVersion != null)
-                    {
-                        setLatestVersion(dependency, latestVersion);
-                        dependency.setError(null);
-                    }
-                    break;
+                    metrics.cacheRevalidated();
+                    cached.setCheckedAt(System.currentTimeMillis());
+                    return cached.toMetadata();
                 }
+                if (response.statusCode() == 200)
+                {
+                    var headers = response.headers();
+                    var gzip = headers.firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+                    var metadata = MavenMetadata.parse(gzip ? new GZIPInputStream(in) : in);
+                    metrics.cacheMiss();
+                    cache.put(key, new MetadataCache.Entry(metadata,
+                                                           headers.firstValue("ETag").orElse(null),
+                                                           headers.firstValue("Last-Modified").orElse(null)));
+                    return metadata;
+                }
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+
+            if (response.statusCode() == 404)
+            {
+                router.notFound(dependency.getModuleId(), repo);
+            }
+            throw new StatusException(response.statusCode(), key);
+        });
+        // the request timeout covers the response headers only, this one covers the body as well
+        result.orTimeout(TimeUnit.NANOSECONDS.toMillis(delay) + TimeUnit.SECONDS.toMillis(repo.getConnectTimeout() + repo.getReadTimeout()),
+                         TimeUnit.MILLISECONDS);
+        result.whenComplete((metadata, error) ->
+        {
+            if (result.isCancelled() || error instanceof TimeoutException)
+            {
+                send.cancel(true);
+                closeQuietly(body.get()); // releases the thread blocked in reading the body
+            }
+            if (!result.isCancelled() && sentAt.get() != 0) metrics.recordRequest(repo.getName(), sentAt.get(), received.get(), error != null);
+        });
+        return result;
+    }
+
+    static void closeQuietly(InputStream in)
+    {
+        if (in == null) return;
+        try
+        {
+            in.close();
+        }
+        catch (IOException e)
+        {
+            LOG.debug(e);
+        }
+    }
+
+    private static MavenMetadata getLocalMetadata(AppSettings.Repo repo, Dependency dependency)
+    {
+        var versions = LocalRepository.getVersions(repo, dependency.getModuleId());
+        if (versions == null)
+        {
+            throw new StatusException(404, LocalRepository.getModuleDirectory(repo, dependency.getModuleId()).getPath());
+        }
+        return new MavenMetadata(null, null, null, versions);
+    }
+
+    private static MavenMetadata getIndexedMetadata(RepositoryIndex index, Dependency dependency, AppSettings.Repo repo)
+    {
+        var versions = index.getVersions(dependency.getModuleId());
+        if (versions == null)
+        {
+            throw new StatusException(404, repo.getName() + " index: " + dependency.getModuleId());
+        }
+        return new MavenMetadata(null, null, null, versions);
+    }
+
+    /**
+     * Sends the request to the first repository, and to the next one when the current repository fails. With
+     * {@link AppSettings#isHedgeRequests()} also each time the hedge delay passes without an answer. The first metadata
+     * wins and the other requests are cancelled. Cancelling the result cancels the requests in flight, and no further
+     * repository is asked.
+     */
+    private static class RepositoryLookup
+    {
+        private final Dependency dependency;
+        private final AppSettings settings;
+        private final RefreshMetrics metrics;
+        private final List<AppSettings.Repo> repos;
+        private final CompletableFuture<Dependency> result = new CompletableFuture<>();
+        private final List<CompletableFuture<MavenMetadata>> attempts = new ArrayList<>();
+        private int next;
+        private int pending;
+        private boolean found;
+        /** A repository failed without saying whether it has the module */
+        private boolean failed;
+
+        RepositoryLookup(Dependency dependency, AppSettings settings, RefreshMetrics metrics, List<AppSettings.Repo> repos)
+        {
+            this.dependency = dependency;
+            this.settings = settings;
+            this.metrics = metrics;
+            this.repos = repos;
+        }
+
+        CompletableFuture<Dependency> start()
+        {
+            result.whenComplete((e, error) ->
+            {
+                if (result.isCancelled()) cancelAttempts();
+            });
+            startNext(0);
+            return result;
+        }
+
+        /**
+         * @return {@code true} if the result holds until the module is published, i.e., a repository has the module or
+         * every repository answered that it does not have it
+         */
+        synchronized boolean isDefinite()
+        {
+            return found || !failed;
+        }
+
+        private synchronized void cancelAttempts()
+        {
+            List.copyOf(attempts).forEach(e -> e.cancel(true));
+        }
+
+        private synchronized void startNext(int expected)
+        {
+            if (result.isDone() || next != expected) return;
+            if (next == repos.size())
+            {
+                if (pending == 0) result.complete(dependency);
+                return;
+            }
 
-                dependency.setError(connection.getResponseMessage());
-                LOG.warn(connection.getResponseCode() + " " + url);
+            var repo = repos.get(next++);
+            pending++;
+            CompletableFuture<MavenMetadata> attempt;
+            try
+            {
+                attempt = getMetadata(repo, dependency, settings, metrics);
+            }
+            catch (RuntimeException e)
+            {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            attempts.add(attempt);
+            attempt.whenComplete((metadata, error) -> onComplete(repo, metadata, error));
+            if (settings.isHedgeRequests() && next < repos.size())
+            {
+                var delayed = CompletableFuture.delayedExecutor(settings.getHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+                var current = next;
+                delayed.execute(() -> startNext(current));
             }
-            catch (Exception e)
+        }
+
+        private synchronized void onComplete(AppSettings.Repo repo, MavenMetadata metadata, Throwable error)
+        {
+            pending--;
+            if (result.isDone()) return;
+
+            if (error == null)
             {
-                LOG.error(e.getMessage());
+                found = true;
+                setMetadata(dependency, repo, metadata, settings);
+                result.complete(dependency);
+                cancelAttempts();
+                return;
             }
+
+            if (!handleError(dependency, repo, error)) failed = true;
+            startNext(next);
         }
     }
 
@@ -63,25 +479,61 @@ public class MavenUtils
         return a.endsWith("/") ? a + b : a + "/" + b;
     }
 
-    private static URLConnection openConnection(String url) throws GeneralSecurityException, IOException
+    private static String getStatusText(int statusCode)
     {
-        var connection = URI.create(url).toURL().openConnection();
-        if (connection instanceof HttpsURLConnection httpsConnection)
+        return switch (statusCode)
         {
-            trustAll(httpsConnection);
-        }
-        var userInfo = URI.create(url).getUserInfo();
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            default -> "HTTP " + statusCode;
+        };
+    }
+
+    /**
+     * One client per repository, each client keeps its own pool of (HTTP/2 multiplexed) connections.
+     */
+    static HttpClient getClient(AppSettings.Repo repo)
+    {
+        return clients.computeIfAbsent(repo.getUrl() + "|" + repo.getConnectTimeout(), key ->
+        {
+            try
+            {
+                return HttpClient.newBuilder()
+                                 .version(HttpClient.Version.HTTP_2)
+                                 .followRedirects(HttpClient.Redirect.NORMAL)
+                                 .connectTimeout(Duration.ofSeconds(repo.getConnectTimeout()))
+                                 .sslContext(trustAll())
+                                 .build();
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    static HttpRequest newRequest(String url, AppSettings.Repo repo) throws URISyntaxException
+    {
+        var uri = URI.create(url);
+        var builder = HttpRequest.newBuilder(new URI(uri.getScheme(), null, uri.getHost(), uri.getPort(), uri.getPath(), uri.getQuery(), null))
+                                 .timeout(Duration.ofSeconds(repo.getReadTimeout()))
+                                 .header("Accept-Encoding", "gzip");
+        var userInfo = uri.getUserInfo();
         if (StringUtils.isNotBlank(userInfo))
         {
             var authorization = "Basic " + Base64.getEncoder().encodeToString(userInfo.getBytes(UTF_8));
-            connection.setRequestProperty("Authorization", authorization);
+            builder.header("Authorization", authorization);
         }
-        return connection;
+        return builder.GET().build();
     }
 
-    private static void trustAll(HttpsURLConnection connection) throws GeneralSecurityException
+    /**
+     * An extended trust manager is used as is, so it skips the host name verification as well.
+     */
+    private static SSLContext trustAll() throws GeneralSecurityException
     {
-        var trustAll = new X509TrustManager()
+        var trustAll = new X509ExtendedTrustManager()
         {
             @Override
             public void checkClientTrusted(X509Certificate[] chain, String authType)
@@ -91,102 +543,111 @@ public class MavenUtils
             public void checkServerTrusted(X509Certificate[] chain, String authType)
             {/*ignored*/}
 
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket)
+            {/*ignored*/}
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket)
+            {/*ignored*/}
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            {/*ignored*/}
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+            {/*ignored*/}
+
             @Override
             public X509Certificate[] getAcceptedIssuers()
             {
                 return new X509Certificate[0];
             }
         };
-        var sslContext = SSLContext.getInstance("TLSv1.2");
-        sslContext.init(null, new X509TrustManager[] { trustAll }, new SecureRandom());
-        connection.setSSLSocketFactory(sslContext.getSocketFactory());
-        connection.setHostnameVerifier((hostname, session) -> true);
+        var sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new X509ExtendedTrustManager[] { trustAll }, new SecureRandom());
+        return sslContext;
     }
 
-    public static String getLatestVersion(InputStream in, AppSettings settings) throws IOException
+    /**
+     * @return the highest version in the metadata that passes the unstable filter
+     */
+    public static String getLatestVersion(MavenMetadata metadata, String group, AppSettings settings)
     {
-        var text = IOUtils.toString(in, UTF_8);
-        var latest = find("<latest>(.*)</latest>", text);
-        if (StringUtils.isBlank(latest))
-        {
-            latest = find("<release>(.*)</release>", text);
-        }
-        if (!settings.isIgnoreUnstable() || isStable(latest, settings.getUnstablePatterns()))
-        {
-            return latest;
-        }
-
-        latest = null;
-        var matcher = Pattern.compile("<version>(.*)</version>").matcher(text);
-        while (matcher.find())
+        var filter = UnstableVersionFilter.of(settings);
+        Version latest = null;
+        for (var version : metadata.versions())
         {
-            var version = matcher.group(1);
-            if (!settings.isIgnoreUnstable() || isStable(version, settings.getUnstablePatterns()))
-            {
-                latest = version;
-            }
+            latest = newer(latest, version, group, filter);
         }
-        return latest;
+        latest = newer(latest, metadata.latest(), group, filter);
+        latest = newer(latest, metadata.release(), group, filter);
+        return latest != null ? latest.toString() : null;
     }
 
-    private static String find(String regex, String input)
+    private static Version newer(Version current, String candidate, String group, UnstableVersionFilter filter)
     {
-        var matcher = Pattern.compile(regex).matcher(input);
-        return matcher.find() ? matcher.group(1) : null;
+        if (!filter.isStable(group, candidate)) return current;
+
+        var version = Version.parse(candidate);
+        return current == null || version.compareTo(current) > 0 ? version : current;
     }
 
-    private static boolean isStable(String version, String patterns)
+    private static void setLatestVersion(Dependency dependency, String latestVersion)
     {
-        if (StringUtils.isBlank(version)) return false;
-        if (StringUtils.isBlank(patterns)) return true;
-
-        var array = patterns.split(",");
-        for (var pattern : array)
+        if (Version.parse(latestVersion).compareTo(Version.parse(dependency.getVersion())) > 0)
         {
-            pattern = StringUtils.trimToEmpty(pattern);
-            if (!pattern.isEmpty() && StringUtils.containsIgnoreCase(version, pattern))
-            {
-                return false;
-            }
+            dependency.setLatestVersion(latestVersion);
         }
-        return true;
     }
 
-    private static void setLatestVersion(Dependency dependency, String latestVersion)
+    /**
+     * Counts the bytes of a response body as they come from the connection.
+     */
+    private static class CountingInputStream extends FilterInputStream
     {
-        var current = parseVersion(dependency.getVersion());
-        while (current.size() < 3) current.add(0);
-        var latest = parseVersion(latestVersion);
-        var min = Math.min(current.size(), latest.size());
-        for (var i = 0; i < min; i++)
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count)
         {
-            if (!latest.get(i).equals(current.get(i)))
-            {
-                if (latest.get(i) > current.get(i))
-                {
-                    dependency.setLatestVersion(latestVersion);
-                }
-                break;
-            }
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            var b = super.read();
+            if (b != -1) count.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            var n = super.read(b, off, len);
+            if (n > 0) count.addAndGet(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            var skipped = super.skip(n);
+            count.addAndGet(skipped);
+            return skipped;
         }
     }
 
-    private static List<Integer> parseVersion(String version)
+    static class StatusException extends RuntimeException
     {
-        var list = new ArrayList<Integer>();
-        var a = version.split("\\.");
-        for (var s : a)
+        private final int statusCode;
+
+        StatusException(int statusCode, String url)
         {
-            try
-            {
-                var n = Integer.parseInt(s);
-                list.add(n);
-            }
-            catch (Exception e)
-            {
-                break;
-            }
+            super(statusCode + " " + url, null, false, false);
+            this.statusCode = statusCode;
         }
-        return list;
     }
 }
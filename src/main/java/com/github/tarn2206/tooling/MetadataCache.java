@@ -0,0 +1,227 @@
+package com.github.tarn2206.tooling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Parsed {@code maven-metadata.xml} by URL, together with the validators to revalidate it. The entries are kept in a
+ * gzipped binary file under the IDE system directory, read when the service is created and written after the update
+ * checks and when it is disposed. Entries older than 30 days are dropped, and the oldest when there are too many.
+ */
+public class MetadataCache implements Disposable
+{
+    private static final Logger LOG = Logger.getInstance(MetadataCache.class);
+    private static final int MAGIC = 0x44434d31;
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final int MAX_ENTRIES = 20_000;
+    /** Used when there is no application, e.g., when the benchmarks call {@link MavenUtils} directly. Not saved. */
+    private static final MetadataCache STANDALONE = new MetadataCache(null);
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final File file;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public MetadataCache()
+    {
+        this(new File(new File(PathManager.getSystemPath(), "dependencies-checker"), "metadata-cache.bin.gz"));
+        load();
+    }
+
+    private MetadataCache(File file)
+    {
+        this.file = file;
+    }
+
+    public static MetadataCache getInstance()
+    {
+        var application = ApplicationManager.getApplication();
+        return application != null ? application.getService(MetadataCache.class) : STANDALONE;
+    }
+
+    public Entry get(String url)
+    {
+        var entry = entries.get(url);
+        if (entry != null && entry.isTooOld())
+        {
+            entries.remove(url, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    public void put(String url, Entry entry)
+    {
+        entries.put(url, entry);
+        dirty.set(true);
+        if (entries.size() > MAX_ENTRIES) evictOldest();
+    }
+
+    /**
+     * Removes the oldest tenth of the entries, so that the next evictions are some puts away.
+     */
+    private synchronized void evictOldest()
+    {
+        if (entries.size() <= MAX_ENTRIES) return;
+
+        var excess = entries.size() - MAX_ENTRIES + MAX_ENTRIES / 10;
+        entries.entrySet().stream()
+               .sorted(Comparator.comparingLong(e -> e.getValue().checkedAt))
+               .limit(excess)
+               .map(Map.Entry::getKey)
+               .toList()
+               .forEach(entries::remove);
+    }
+
+    @Override
+    public void dispose()
+    {
+        save();
+    }
+
+    /**
+     * Writes the entries if they changed since the last save. Does nothing for the cache without application.
+     */
+    public synchronized void save()
+    {
+        if (file == null || !dirty.getAndSet(false)) return;
+
+        var live = entries.entrySet().stream().filter(e -> !e.getValue().isTooOld()).toList();
+        try
+        {
+            Files.createDirectories(file.getParentFile().toPath());
+            var tmp = new File(file.getPath() + ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp.toPath())))))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(live.size());
+                for (var e : live)
+                {
+                    var entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    writeNullable(out, entry.etag);
+                    writeNullable(out, entry.lastModified);
+                    out.writeLong(entry.checkedAt);
+                    writeNullable(out, entry.latest);
+                    writeNullable(out, entry.release);
+                    writeNullable(out, entry.lastUpdated);
+                    var versions = entry.versions != null ? entry.versions : List.<String>of();
+                    out.writeInt(versions.size());
+                    for (var version : versions)
+                    {
+                        out.writeUTF(version);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Cannot write " + file, e);
+        }
+    }
+
+    private void load()
+    {
+        if (!file.isFile()) return;
+
+        try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file.toPath())))))
+        {
+            if (in.readInt() != MAGIC) return;
+
+            var count = in.readInt();
+            for (var i = 0; i < count; i++)
+            {
+                var url = in.readUTF();
+                var entry = new Entry();
+                entry.etag = readNullable(in);
+                entry.lastModified = readNullable(in);
+                entry.checkedAt = in.readLong();
+                entry.latest = readNullable(in);
+                entry.release = readNullable(in);
+                entry.lastUpdated = readNullable(in);
+                var versions = new String[in.readInt()];
+                for (var j = 0; j < versions.length; j++)
+                {
+                    versions[j] = in.readUTF();
+                }
+                entry.versions = List.of(versions);
+                entries.put(url, entry);
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Cannot read " + file, e);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException
+    {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    @Getter @Setter
+    public static class Entry
+    {
+        private String etag;
+        private String lastModified;
+        private long checkedAt;
+        private String latest;
+        private String release;
+        private String lastUpdated;
+        private List<String> versions;
+
+        private Entry() {}
+
+        public Entry(MavenMetadata metadata, String etag, String lastModified)
+        {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.checkedAt = System.currentTimeMillis();
+            this.latest = metadata.latest();
+            this.release = metadata.release();
+            this.lastUpdated = metadata.lastUpdated();
+            this.versions = metadata.versions();
+        }
+
+        public boolean isExpired(long ttlMinutes)
+        {
+            return System.currentTimeMillis() - checkedAt > TimeUnit.MINUTES.toMillis(ttlMinutes);
+        }
+
+        private boolean isTooOld()
+        {
+            return System.currentTimeMillis() - checkedAt > MAX_AGE;
+        }
+
+        public MavenMetadata toMetadata()
+        {
+            return new MavenMetadata(latest, release, lastUpdated, versions);
+        }
+    }
+}
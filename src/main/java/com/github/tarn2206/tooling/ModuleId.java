@@ -0,0 +1,13 @@
+package com.github.tarn2206.tooling;
+
+/**
+ * Identity of a module regardless of its version, used to look up dependencies by {@code group:name}.
+ */
+public record ModuleId(String group, String name)
+{
+    @Override
+    public String toString()
+    {
+        return group + ":" + name;
+    }
+}
@@ -5,8 +5,9 @@ import java.util.List;
 
 /**
  * @author tarn on 09 March 2022 16:49
+ * @param dependencies first level dependencies when resolved together with the project structure, otherwise {@code null}
  */
-public record ProjectInfo(String name, File buildFile, List<ProjectInfo> children)
+public record ProjectInfo(String name, File buildFile, List<ProjectInfo> children, List<Dependency> dependencies)
 {
     @Override
     public String toString()
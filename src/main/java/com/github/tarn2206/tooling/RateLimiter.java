@@ -0,0 +1,28 @@
+package com.github.tarn2206.tooling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spaces out requests evenly, each caller reserves the next free slot and waits for it without blocking a thread.
+ * Callers with different rates share the slots, each reservation keeps the next one at the caller's interval, so the
+ * requests of all callers together never exceed the highest rate.
+ */
+public class RateLimiter
+{
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param permitsPerSecond the rate of this caller, 0 for no limit
+     * @return nanoseconds to wait before the reserved request may be sent
+     */
+    public long reserve(int permitsPerSecond)
+    {
+        if (permitsPerSecond <= 0) return 0;
+
+        var intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        var now = System.nanoTime();
+        var slot = nextSlot.getAndAccumulate(now, (next, n) -> Math.max(next, n) + intervalNanos);
+        return Math.max(slot, now) - now;
+    }
+}
@@ -0,0 +1,266 @@
+package com.github.tarn2206.tooling;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.util.text.StringUtil;
+
+/**
+ * Timings and counters of one refresh, recorded from any thread. Shown in the tool window and written to the JSON export.
+ */
+public class RefreshMetrics
+{
+    /** Discards everything, for callers that do not show metrics. */
+    public static final RefreshMetrics NONE = new RefreshMetrics(false);
+    private static final int SLOWEST_PROJECTS = 10;
+
+    private final boolean enabled;
+    private final long startedAt = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private volatile long durationNanos = -1;
+    private final Map<Phase, Timer> phases = new ConcurrentHashMap<>();
+    private final Map<String, Timer> projects = new ConcurrentHashMap<>();
+    private final Map<String, Timer> repositories = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheRevalidated = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder sharedResults = new LongAdder();
+
+    public enum Phase
+    {
+        CONNECT("Connection setup"),
+        MODEL("Model fetch"),
+        BUILD("Build run"),
+        PARSE("Parse"),
+        CHECK("Update checks");
+
+        private final String label;
+
+        Phase(String label)
+        {
+            this.label = label;
+        }
+    }
+
+    public RefreshMetrics()
+    {
+        this(true);
+    }
+
+    private RefreshMetrics(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} when the phase started
+     */
+    public void record(Phase phase, long startNanos)
+    {
+        add(phase, System.nanoTime() - startNanos);
+    }
+
+    public void add(Phase phase, long nanos)
+    {
+        if (enabled) phases.computeIfAbsent(phase, key -> new Timer()).add(nanos, 0, false);
+    }
+
+    /**
+     * The time spent to resolve the dependencies of one project.
+     *
+     * @param path the Gradle path of the project, e.g., {@code :web:api}, unique within the build
+     */
+    public void recordProject(String path, long startNanos)
+    {
+        addProject(path, System.nanoTime() - startNanos);
+    }
+
+    public void addProject(String path, long nanos)
+    {
+        if (enabled) projects.computeIfAbsent(path, key -> new Timer()).add(nanos, 0, false);
+    }
+
+    /**
+     * @param bytes the body size as transferred, before decompression
+     */
+    public void recordRequest(String repository, long startNanos, long bytes, boolean failed)
+    {
+        if (enabled) repositories.computeIfAbsent(repository, key -> new Timer()).add(System.nanoTime() - startNanos, bytes, failed);
+    }
+
+    public void cacheHit()
+    {
+        if (enabled) cacheHits.increment();
+    }
+
+    /** The cached metadata was expired, and the repository answered 304. */
+    public void cacheRevalidated()
+    {
+        if (enabled) cacheRevalidated.increment();
+    }
+
+    public void cacheMiss()
+    {
+        if (enabled) cacheMisses.increment();
+    }
+
+    /** The result came from a lookup of another project or an earlier refresh, see {@link UpdateResultCache}. */
+    public void resultShared()
+    {
+        if (enabled) sharedResults.increment();
+    }
+
+    public void finish()
+    {
+        if (durationNanos < 0) durationNanos = System.nanoTime() - startNanos;
+    }
+
+    public boolean isFinished()
+    {
+        return durationNanos >= 0;
+    }
+
+    public String getSummary()
+    {
+        var s = new StringBuilder();
+        s.append(isFinished() ? "Refresh took " + formatNanos(durationNanos) : "Refresh is running").append("\n\nPhases\n");
+        for (var phase : Phase.values())
+        {
+            var timer = phases.get(phase);
+            if (timer != null)
+            {
+                timer = timer.copy();
+                s.append(String.format("  %-18s %5d calls, total %10s, max %10s%n", phase.label, timer.count, formatNanos(timer.totalNanos),
+                                       formatNanos(timer.maxNanos)));
+            }
+        }
+
+        s.append("\nRepositories\n");
+        for (var e : sorted(repositories))
+        {
+            var timer = e.getValue();
+            s.append(String.format("  %-18s %5d requests, %d failed, avg %s, max %s, %s%n", e.getKey(), timer.count, timer.failed,
+                                   formatNanos(timer.totalNanos / Math.max(1, timer.count)), formatNanos(timer.maxNanos),
+                                   StringUtil.formatFileSize(timer.bytes)));
+        }
+        s.append(String.format("%nMetadata cache: %d hits, %d revalidated, %d downloaded%n", cacheHits.sum(), cacheRevalidated.sum(),
+                               cacheMisses.sum()));
+        s.append(String.format("Shared results: %d%n", sharedResults.sum()));
+
+        if (!projects.isEmpty())
+        {
+            s.append("\nSlowest projects\n");
+            sorted(projects).stream().limit(SLOWEST_PROJECTS).forEach(e ->
+                s.append(String.format("  %-30s %10s%n", e.getKey(), formatNanos(e.getValue().totalNanos))));
+        }
+        return s.toString();
+    }
+
+    public void write(JsonWriter json) throws IOException
+    {
+        json.beginObject();
+        json.name("startedAt").value(startedAt);
+        if (isFinished()) json.name("durationMillis").value(toMillis(durationNanos));
+        json.name("phases").beginObject();
+        for (var phase : Phase.values())
+        {
+            var timer = phases.get(phase);
+            if (timer != null) writeTimer(json.name(phase.name().toLowerCase(Locale.ROOT)), timer, false);
+        }
+        json.endObject();
+        json.name("projects").beginObject();
+        for (var e : sorted(projects))
+        {
+            writeTimer(json.name(e.getKey()), e.getValue(), false);
+        }
+        json.endObject();
+        json.name("repositories").beginObject();
+        for (var e : sorted(repositories))
+        {
+            writeTimer(json.name(e.getKey()), e.getValue(), true);
+        }
+        json.endObject();
+        json.name("cache").beginObject();
+        json.name("hits").value(cacheHits.sum());
+        json.name("revalidated").value(cacheRevalidated.sum());
+        json.name("misses").value(cacheMisses.sum());
+        json.name("shared").value(sharedResults.sum());
+        json.endObject();
+        json.endObject();
+    }
+
+    private static void writeTimer(JsonWriter json, Timer timer, boolean requests) throws IOException
+    {
+        synchronized (timer)
+        {
+            json.beginObject();
+            json.name("count").value(timer.count);
+            json.name("totalMillis").value(toMillis(timer.totalNanos));
+            json.name("maxMillis").value(toMillis(timer.maxNanos));
+            if (requests)
+            {
+                json.name("failed").value(timer.failed);
+                json.name("bytes").value(timer.bytes);
+            }
+            json.endObject();
+        }
+    }
+
+    /**
+     * @return copies of the timers, with the longest total time first. The timers are copied before sorting, a total that
+     * changes while sorting breaks the contract of the comparator.
+     */
+    private static List<Map.Entry<String, Timer>> sorted(Map<String, Timer> timers)
+    {
+        return timers.entrySet().stream()
+                     .map(e -> Map.entry(e.getKey(), e.getValue().copy()))
+                     .sorted(Comparator.comparingLong((Map.Entry<String, Timer> e) -> e.getValue().totalNanos).reversed())
+                     .toList();
+    }
+
+    private static long toMillis(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static String formatNanos(long nanos)
+    {
+        return StringUtil.formatDuration(toMillis(nanos));
+    }
+
+    private static class Timer
+    {
+        private int count;
+        private int failed;
+        private long totalNanos;
+        private long maxNanos;
+        private long bytes;
+
+        synchronized void add(long nanos, long bytes, boolean failed)
+        {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            this.bytes += bytes;
+            if (failed) this.failed++;
+        }
+
+        synchronized Timer copy()
+        {
+            var copy = new Timer();
+            copy.count = count;
+            copy.failed = failed;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            copy.bytes = bytes;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.github.tarn2206.tooling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.github.tarn2206.AppSettings;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+
+/**
+ * The versions of every module of a repository, downloaded at once from a dump with one module per line:
+ * <pre>
+ * # comment
+ * org.slf4j:slf4j-api 1.7.36 2.0.16 2.0.17
+ * com.google.guava:guava 33.3.1-jre,33.4.0-jre
+ * </pre>
+ * The dump is kept in a gzipped binary file under the IDE system directory and in a hash map, so each lookup is a
+ * map access. While lookups use the index, it is revalidated in the background with
+ * {@code If-None-Match}/{@code If-Modified-Since} once per cache TTL, a lookup waits only when there is no index yet.
+ */
+public class RepositoryIndex
+{
+    private static final Logger LOG = Logger.getInstance(RepositoryIndex.class);
+    private static final int MAGIC = 0x44434931;
+    private static final Pattern VERSION_SEPARATOR = Pattern.compile("[\\s,]+");
+    /** The dump can be large, its body gets this time on top of the timeouts of the repository. */
+    private static final long BODY_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final Map<String, RepositoryIndex> indexes = new ConcurrentHashMap<>();
+
+    private final String url;
+    private final String displayUrl;
+    private final File file;
+    private volatile Map<String, String[]> modules;
+    private String etag;
+    private String lastModified;
+    private long checkedAt;
+    private boolean loaded;
+    /** Completes when there is an index, read from disk or downloaded */
+    private CompletableFuture<RepositoryIndex> ready;
+    private CompletableFuture<RepositoryIndex> refresh;
+    /** The settings of the last lookup, the scheduled refresh uses them */
+    private AppSettings.Repo repo;
+    private AppSettings settings;
+    /** A lookup used the index since the last scheduled refresh, otherwise the schedule stops until the next lookup */
+    private boolean used;
+    private boolean scheduled;
+
+    private RepositoryIndex(String url)
+    {
+        this(url, new File(PathManager.getSystemPath(), "dependencies-checker"));
+    }
+
+    RepositoryIndex(String url, File dir)
+    {
+        this.url = url;
+        this.displayUrl = url.replaceFirst("//[^/@]*@", "//");
+        this.file = new File(dir, "index-" + Integer.toHexString(url.hashCode()) + ".bin.gz");
+    }
+
+    /**
+     * @return the index of the repository, read from disk or downloaded first if there is none yet
+     */
+    public static CompletableFuture<RepositoryIndex> get(AppSettings.Repo repo, AppSettings settings)
+    {
+        return indexes.computeIfAbsent(repo.getUrl(), RepositoryIndex::new).use(repo, settings);
+    }
+
+    /**
+     * @return the versions of the module, or {@code null} if the repository does not have it
+     */
+    public List<String> getVersions(ModuleId module)
+    {
+        var versions = modules.get(module.toString());
+        return versions != null ? Arrays.asList(versions) : null;
+    }
+
+    private synchronized CompletableFuture<RepositoryIndex> use(AppSettings.Repo repo, AppSettings settings)
+    {
+        this.repo = repo;
+        this.settings = settings;
+        used = true;
+        if (modules != null)
+        {
+            if (!scheduled && refresh == null) scheduleRefresh();
+            return CompletableFuture.completedFuture(this);
+        }
+
+        // without an index, a failed download is answered until the TTL passes
+        if (ready == null || ready.isCompletedExceptionally() && isExpired())
+        {
+            ready = loaded ? startRefresh()
+                           : CompletableFuture.runAsync(this::load)
+                                              .thenCompose(v -> modules != null ? CompletableFuture.completedFuture(this) : startRefresh());
+            loaded = true;
+            ready.thenRun(this::scheduleRefresh);
+        }
+        return ready;
+    }
+
+    private synchronized boolean isExpired()
+    {
+        return System.currentTimeMillis() - checkedAt > TimeUnit.MINUTES.toMillis(settings.getCacheTtlMinutes());
+    }
+
+    private synchronized void scheduleRefresh()
+    {
+        if (scheduled) return;
+
+        scheduled = true;
+        var delay = Math.max(0, checkedAt + TimeUnit.MINUTES.toMillis(settings.getCacheTtlMinutes()) - System.currentTimeMillis());
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::refreshIfUsed);
+    }
+
+    private void refreshIfUsed()
+    {
+        synchronized (this)
+        {
+            scheduled = false;
+            if (!used) return;
+
+            used = false;
+        }
+        startRefresh().whenComplete((index, error) -> scheduleRefresh());
+    }
+
+    private synchronized CompletableFuture<RepositoryIndex> startRefresh()
+    {
+        if (refresh == null)
+        {
+            var current = download(repo);
+            refresh = current;
+            current.whenComplete((index, error) -> onRefreshed(error));
+        }
+        return refresh;
+    }
+
+    private synchronized void onRefreshed(Throwable error)
+    {
+        refresh = null;
+        if (error != null)
+        {
+            checkedAt = System.currentTimeMillis();
+            if (modules != null) LOG.warn("Cannot refresh the index of " + displayUrl + ", using the previous one", error);
+        }
+    }
+
+    private CompletableFuture<RepositoryIndex> download(AppSettings.Repo repo)
+    {
+        HttpRequest request;
+        try
+        {
+            var builder = HttpRequest.newBuilder(MavenUtils.newRequest(url, repo), (name, value) -> true);
+            synchronized (this)
+            {
+                if (modules != null && etag != null) builder.header("If-None-Match", etag);
+                if (modules != null && lastModified != null) builder.header("If-Modified-Since", lastModified);
+            }
+            request = builder.build();
+        }
+        catch (URISyntaxException | IllegalArgumentException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        var key = request.uri().toString();
+        var body = new AtomicReference<InputStream>();
+        var send = MavenUtils.getClient(repo).sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        var result = send.thenApply(response ->
+        {
+            body.set(response.body());
+            try (var in = response.body())
+            {
+                if (response.statusCode() == 304)
+                {
+                    var now = System.currentTimeMillis();
+                    synchronized (this)
+                    {
+                        checkedAt = now;
+                    }
+                    file.setLastModified(now);
+                    return this;
+                }
+                if (response.statusCode() != 200)
+                {
+                    throw new MavenUtils.StatusException(response.statusCode(), key);
+                }
+
+                var headers = response.headers();
+                var gzip = headers.firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+                var parsed = parse(gzip ? new GZIPInputStream(in) : in);
+                update(parsed, headers.firstValue("ETag").orElse(null), headers.firstValue("Last-Modified").orElse(null));
+                LOG.info("Loaded " + parsed.size() + " modules from " + key);
+                return this;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
+        // the request timeout covers the response headers only, this one covers the body as well
+        result.orTimeout(TimeUnit.SECONDS.toMillis(repo.getConnectTimeout() + repo.getReadTimeout()) + BODY_TIMEOUT_MILLIS,
+                         TimeUnit.MILLISECONDS);
+        result.whenComplete((index, error) ->
+        {
+            if (error instanceof TimeoutException)
+            {
+                send.cancel(true);
+                MavenUtils.closeQuietly(body.get()); // releases the thread blocked in reading the body
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Replaces the index and writes it to disk.
+     */
+    void update(Map<String, String[]> modules, String etag, String lastModified)
+    {
+        synchronized (this)
+        {
+            this.modules = modules;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            checkedAt = System.currentTimeMillis();
+        }
+        save();
+    }
+
+    static Map<String, String[]> parse(InputStream in) throws IOException
+    {
+        var modules = new HashMap<String, String[]>();
+        var reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            var i = 0;
+            while (i < line.length() && !Character.isWhitespace(line.charAt(i))) i++;
+            if (i == line.length() || line.indexOf(':') == -1) continue;
+
+            var versions = VERSION_SEPARATOR.split(line.substring(i).trim());
+            modules.put(line.substring(0, i), versions);
+        }
+        return modules;
+    }
+
+    void load()
+    {
+        if (!file.isFile()) return;
+
+        try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file.toPath())))))
+        {
+            if (in.readInt() != MAGIC || !displayUrl.equals(in.readUTF())) return;
+
+            var storedEtag = in.readUTF();
+            var storedLastModified = in.readUTF();
+            var count = in.readInt();
+            var map = new HashMap<String, String[]>(count * 4 / 3 + 1);
+            for (var i = 0; i < count; i++)
+            {
+                var key = in.readUTF();
+                var versions = new String[in.readShort() & 0xFFFF];
+                for (var j = 0; j < versions.length; j++)
+                {
+                    versions[j] = in.readUTF();
+                }
+                map.put(key, versions);
+            }
+            synchronized (this)
+            {
+                modules = map;
+                etag = storedEtag.isEmpty() ? null : storedEtag;
+                lastModified = storedLastModified.isEmpty() ? null : storedLastModified;
+                checkedAt = file.lastModified();
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Cannot read " + file, e);
+        }
+    }
+
+    private void save()
+    {
+        Map<String, String[]> map;
+        String etag;
+        String lastModified;
+        synchronized (this)
+        {
+            map = modules;
+            etag = this.etag;
+            lastModified = this.lastModified;
+        }
+        try
+        {
+            Files.createDirectories(file.getParentFile().toPath());
+            var tmp = new File(file.getPath() + ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp.toPath())))))
+            {
+                out.writeInt(MAGIC);
+                out.writeUTF(displayUrl);
+                out.writeUTF(etag != null ? etag : "");
+                out.writeUTF(lastModified != null ? lastModified : "");
+                out.writeInt(map.size());
+                for (var e : map.entrySet())
+                {
+                    var versions = e.getValue();
+                    var n = Math.min(versions.length, 0xFFFF);
+                    out.writeUTF(e.getKey());
+                    out.writeShort(n);
+                    for (var i = 0; i < n; i++)
+                    {
+                        out.writeUTF(versions[i]);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Cannot write " + file, e);
+        }
+    }
+}
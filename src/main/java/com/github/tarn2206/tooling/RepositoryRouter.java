@@ -0,0 +1,107 @@
+package com.github.tarn2206.tooling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.github.tarn2206.AppSettings;
+
+/**
+ * Remembers which repository served each group and which repositories answered 404 for a module,
+ * so later lookups go straight to the right repository.
+ */
+public class RepositoryRouter
+{
+    private static final int MAX_ENTRIES = 10_000;
+    private static final long FOUND_TTL = TimeUnit.DAYS.toMillis(1);
+    private static final long NOT_FOUND_TTL = TimeUnit.HOURS.toMillis(6);
+
+    private final Map<String, Route> servedBy = boundedMap();
+    private final Map<String, Long> notFound = boundedMap();
+    private final LongSupplier clock;
+
+    public RepositoryRouter()
+    {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds
+     */
+    RepositoryRouter(LongSupplier clock)
+    {
+        this.clock = clock;
+    }
+
+    private static <V> Map<String, V> boundedMap()
+    {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest)
+            {
+                return size() > MAX_ENTRIES;
+            }
+        });
+    }
+
+    /**
+     * @return the repositories that accept the group and did not recently answer 404 for the module,
+     * the repository that served the group before comes first
+     */
+    public List<AppSettings.Repo> route(ModuleId module, List<AppSettings.Repo> repos)
+    {
+        var now = clock.getAsLong();
+        var list = new ArrayList<AppSettings.Repo>(repos.size());
+        for (var repo : repos)
+        {
+            var expiresAt = notFound.get(notFoundKey(repo, module));
+            if (expiresAt == null || expiresAt < now)
+            {
+                list.add(repo);
+            }
+        }
+
+        var route = servedBy.get(module.group());
+        if (route != null && route.expiresAt >= now)
+        {
+            for (var i = 1; i < list.size(); i++)
+            {
+                if (list.get(i).getUrl().equals(route.url))
+                {
+                    list.add(0, list.remove(i));
+                    break;
+                }
+            }
+        }
+        return list;
+    }
+
+    public void found(ModuleId module, AppSettings.Repo repo)
+    {
+        servedBy.put(module.group(), new Route(repo.getUrl(), clock.getAsLong() + FOUND_TTL));
+        notFound.remove(notFoundKey(repo, module));
+    }
+
+    public void notFound(ModuleId module, AppSettings.Repo repo)
+    {
+        notFound.put(notFoundKey(repo, module), clock.getAsLong() + NOT_FOUND_TTL);
+    }
+
+    public void clear()
+    {
+        servedBy.clear();
+        notFound.clear();
+    }
+
+    private static String notFoundKey(AppSettings.Repo repo, ModuleId module)
+    {
+        return repo.getUrl() + '|' + module;
+    }
+
+    private record Route(String url, long expiresAt) {}
+}
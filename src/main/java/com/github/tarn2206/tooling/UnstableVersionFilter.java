@@ -0,0 +1,181 @@
+package com.github.tarn2206.tooling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.github.tarn2206.AppSettings;
+import com.intellij.openapi.diagnostic.Logger;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Decides whether a version is unstable, compiled once from the settings into one case-insensitive pattern
+ * per group override.
+ * <p>
+ * Unstable patterns are comma separated, each one is either a substring, e.g., {@code beta}, or a regular expression
+ * between slashes, e.g., {@code /-M\d+$/}. Allowed patterns are {@code group: pattern, pattern} entries separated by
+ * semicolons, they take the listed patterns out of the unstable patterns for the groups with that prefix.
+ */
+public class UnstableVersionFilter
+{
+    private static final Logger LOG = Logger.getInstance(UnstableVersionFilter.class);
+    private static final UnstableVersionFilter ACCEPT_ALL = new UnstableVersionFilter(null, null, null, List.of());
+    private static volatile UnstableVersionFilter last = ACCEPT_ALL;
+
+    private final String unstablePatterns;
+    private final String allowedPatterns;
+    private final Pattern unstable;
+    private final List<GroupOverride> overrides;
+
+    private UnstableVersionFilter(String unstablePatterns, String allowedPatterns, Pattern unstable, List<GroupOverride> overrides)
+    {
+        this.unstablePatterns = unstablePatterns;
+        this.allowedPatterns = allowedPatterns;
+        this.unstable = unstable;
+        this.overrides = overrides;
+    }
+
+    /**
+     * @return the filter for the current settings, compiled again only when the patterns have changed
+     */
+    public static UnstableVersionFilter of(AppSettings settings)
+    {
+        if (!settings.isIgnoreUnstable()) return ACCEPT_ALL;
+
+        var filter = last;
+        if (filter != ACCEPT_ALL
+            && Objects.equals(filter.unstablePatterns, settings.getUnstablePatterns())
+            && Objects.equals(filter.allowedPatterns, settings.getAllowedUnstablePatterns()))
+        {
+            return filter;
+        }
+        filter = compile(settings.getUnstablePatterns(), settings.getAllowedUnstablePatterns());
+        last = filter;
+        return filter;
+    }
+
+    public static UnstableVersionFilter compile(String unstablePatterns, String allowedPatterns)
+    {
+        var tokens = tokenize(unstablePatterns);
+        var overrides = new ArrayList<GroupOverride>();
+        if (StringUtils.isNotBlank(allowedPatterns))
+        {
+            for (var entry : allowedPatterns.split(";"))
+            {
+                var i = entry.indexOf(':');
+                var group = StringUtils.trimToEmpty(i != -1 ? entry.substring(0, i) : entry);
+                if (group.isEmpty() || i == -1) continue;
+
+                var allowed = tokenize(entry.substring(i + 1));
+                var remaining = tokens.stream().filter(token -> allowed.stream().noneMatch(token::equalsIgnoreCase)).toList();
+                overrides.add(new GroupOverride(group, toPattern(remaining)));
+            }
+        }
+        return new UnstableVersionFilter(unstablePatterns, allowedPatterns, toPattern(tokens), overrides);
+    }
+
+    public boolean isStable(String group, String version)
+    {
+        if (StringUtils.isBlank(version)) return false;
+
+        var pattern = unstable;
+        var longest = -1;
+        for (var override : overrides)
+        {
+            if (override.group.length() > longest && override.matches(group))
+            {
+                pattern = override.unstable;
+                longest = override.group.length();
+            }
+        }
+        return pattern == null || !pattern.matcher(version).find();
+    }
+
+    /**
+     * Splits on commas, except the commas inside {@code /regex/}.
+     */
+    private static List<String> tokenize(String patterns)
+    {
+        var tokens = new ArrayList<String>();
+        if (StringUtils.isBlank(patterns)) return tokens;
+
+        var length = patterns.length();
+        var i = 0;
+        while (i < length)
+        {
+            while (i < length && Character.isWhitespace(patterns.charAt(i))) i++;
+            var start = i;
+            var end = -1;
+            if (i < length && patterns.charAt(i) == '/')
+            {
+                end = closingSlash(patterns, i + 1);
+            }
+            if (end == -1)
+            {
+                end = patterns.indexOf(',', i);
+                if (end == -1) end = length;
+            }
+            var token = patterns.substring(start, end).trim();
+            if (!token.isEmpty()) tokens.add(token);
+            i = end + 1;
+        }
+        return tokens;
+    }
+
+    /**
+     * @return the index of the comma (or end) after the slash that closes the regular expression, or -1
+     */
+    private static int closingSlash(String patterns, int from)
+    {
+        var i = patterns.indexOf('/', from);
+        while (i != -1)
+        {
+            var j = i + 1;
+            while (j < patterns.length() && Character.isWhitespace(patterns.charAt(j))) j++;
+            if (j == patterns.length() || patterns.charAt(j) == ',') return j;
+            i = patterns.indexOf('/', i + 1);
+        }
+        return -1;
+    }
+
+    private static Pattern toPattern(List<String> tokens)
+    {
+        if (tokens.isEmpty()) return null;
+
+        var regex = new StringBuilder();
+        for (var token : tokens)
+        {
+            if (!regex.isEmpty()) regex.append('|');
+            regex.append("(?:").append(toRegex(token)).append(')');
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    private static String toRegex(String token)
+    {
+        if (token.length() > 2 && token.startsWith("/") && token.endsWith("/"))
+        {
+            var regex = token.substring(1, token.length() - 1);
+            try
+            {
+                Pattern.compile(regex);
+                return regex;
+            }
+            catch (PatternSyntaxException e)
+            {
+                LOG.warn("Invalid unstable version pattern " + token + ", matched as text: " + e.getDescription());
+            }
+        }
+        return Pattern.quote(token);
+    }
+
+    private record GroupOverride(String group, Pattern unstable)
+    {
+        boolean matches(String name)
+        {
+            return name != null && (name.equals(group) || name.startsWith(group.endsWith(".") ? group : group + "."));
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.tarn2206.tooling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import com.github.tarn2206.AppSettings;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs all update checks of a refresh in one background task, with at most
+ * {@link AppSettings#getMaxConcurrentChecks()} lookups in flight. Dependencies can be submitted while it is running.
+ */
+public class UpdateCheckScheduler
+{
+    private static final Logger LOG = Logger.getInstance(UpdateCheckScheduler.class);
+    private final Project project;
+    private final AppSettings settings;
+    private final Consumer<Dependency> onChecked;
+    private final Runnable onDone;
+    private final Queue<Dependency> queue = new ArrayDeque<>();
+    private final Set<CompletableFuture<Dependency>> inFlight = new HashSet<>();
+    private RefreshMetrics metrics = RefreshMetrics.NONE;
+    private boolean running;
+    /** The dependencies taken off the queue and not checked yet */
+    private int active;
+    /** Incremented by {@link #cancelAll}, to cancel the lookups that start after it */
+    private int generation;
+    private int checked;
+    private int total;
+
+    /**
+     * @param onChecked called from a background thread when a dependency is checked, also when the check fails with
+     * the reason in {@link Dependency#getError()}
+     * @param onDone called on the EDT when there is nothing left to check, or the checks are cancelled
+     */
+    public UpdateCheckScheduler(Project project, AppSettings settings, Consumer<Dependency> onChecked, Runnable onDone)
+    {
+        this.project = project;
+        this.settings = settings;
+        this.onChecked = onChecked;
+        this.onDone = onDone;
+    }
+
+    /**
+     * @param metrics the metrics of the refresh that starts the task, the dependencies submitted while it is running
+     * are counted in the same metrics
+     * @return {@code true} if a new background task is started, {@code onDone} will be called when it ends
+     */
+    public synchronized boolean submit(Collection<Dependency> dependencies, RefreshMetrics metrics)
+    {
+        if (!running)
+        {
+            checked = 0;
+            total = 0;
+            this.metrics = metrics;
+        }
+        queue.addAll(dependencies);
+        total += dependencies.size();
+        notifyAll();
+        if (running) return false;
+
+        running = true;
+        new Task.Backgroundable(project, "Check dependency updates", true)
+        {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator)
+            {
+                indicator.setIndeterminate(false);
+                try
+                {
+                    runChecks(indicator);
+                }
+                finally
+                {
+                    MetadataCache.getInstance().save();
+                }
+            }
+
+            @Override
+            public void onFinished()
+            {
+                onDone.run();
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error)
+            {
+                LOG.error(error);
+            }
+        }.queue();
+        return true;
+    }
+
+    /**
+     * Takes the dependencies off the queue under the lock and starts their lookups without it, so {@link #submit} and
+     * {@link #cancelAll} do not wait for a lookup that reads the disk.
+     */
+    private void runChecks(ProgressIndicator indicator)
+    {
+        var start = System.nanoTime();
+        var finished = false;
+        try
+        {
+            while (true)
+            {
+                var batch = new ArrayList<Dependency>();
+                int generation;
+                synchronized (this)
+                {
+                    if (queue.isEmpty() && active == 0)
+                    {
+                        running = false;
+                        finished = true;
+                        break;
+                    }
+
+                    if (!indicator.isCanceled())
+                    {
+                        while (active < settings.getMaxConcurrentChecks() && !queue.isEmpty())
+                        {
+                            batch.add(queue.poll());
+                            active++;
+                        }
+                        indicator.setText("Checked " + checked + "/" + total);
+                        indicator.setFraction(total == 0 ? 0 : (double)checked / total);
+                        if (batch.isEmpty()) wait(100);
+                    }
+                    generation = this.generation;
+                }
+                if (indicator.isCanceled())
+                {
+                    synchronized (this)
+                    {
+                        active -= batch.size();
+                    }
+                    cancelAll();
+                    indicator.checkCanceled();
+                }
+                for (var dependency : batch)
+                {
+                    start(dependency, generation);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            cancelAll();
+        }
+        finally
+        {
+            if (!finished)
+            {
+                synchronized (this)
+                {
+                    running = false;
+                }
+            }
+            metrics.record(RefreshMetrics.Phase.CHECK, start);
+        }
+    }
+
+    /**
+     * @param generation the value of {@link #generation} when the dependency was taken off the queue, the lookup is
+     * cancelled right away if {@link #cancelAll} was called since
+     */
+    private void start(Dependency dependency, int generation)
+    {
+        CompletableFuture<Dependency> future;
+        try
+        {
+            future = MavenUtils.checkForUpdate(dependency, settings, metrics);
+        }
+        catch (RuntimeException e)
+        {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        boolean cancelled;
+        synchronized (this)
+        {
+            cancelled = generation != this.generation;
+            if (!cancelled) inFlight.add(future);
+        }
+        var started = future;
+        started.whenComplete((result, error) ->
+        {
+            synchronized (this)
+            {
+                inFlight.remove(started);
+                active--;
+                checked++;
+                notifyAll();
+            }
+            var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) return;
+
+            if (cause != null)
+            {
+                LOG.warn("Cannot check " + dependency, cause);
+                dependency.setError(StringUtils.defaultIfBlank(cause.getMessage(), cause.getClass().getSimpleName()));
+            }
+            onChecked.accept(dependency);
+        });
+        if (cancelled) started.cancel(true);
+    }
+
+    /**
+     * Drops the queued dependencies and cancels the lookups in flight.
+     */
+    public void cancelAll()
+    {
+        List<CompletableFuture<Dependency>> cancelled;
+        synchronized (this)
+        {
+            generation++;
+            queue.clear();
+            cancelled = List.copyOf(inFlight);
+            notifyAll();
+        }
+        cancelled.forEach(future -> future.cancel(true));
+    }
+}
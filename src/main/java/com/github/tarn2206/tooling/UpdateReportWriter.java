@@ -0,0 +1,288 @@
+package com.github.tarn2206.tooling;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes the check results as JSON, CSV or SARIF while the projects are walked, nothing is collected before writing.
+ * Call {@link #startProject(String, File)} before the dependencies of each project, and {@link #close()} at the end.
+ */
+public abstract class UpdateReportWriter implements Closeable
+{
+    protected String project;
+    protected File buildFile;
+    protected RefreshMetrics metrics;
+
+    public enum Format
+    {
+        JSON, CSV, SARIF;
+
+        public String getExtension()
+        {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @return the format of a file extension or a {@code --format} value, {@code null} if none matches
+         */
+        public static Format of(String s)
+        {
+            var extension = s.substring(s.lastIndexOf('.') + 1);
+            for (var format : values())
+            {
+                if (format.getExtension().equalsIgnoreCase(extension)) return format;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @param baseDir the build files in a SARIF report are relative to this directory, when they are inside it
+     */
+    public static UpdateReportWriter create(Format format, Writer out, File baseDir) throws IOException
+    {
+        return switch (format)
+        {
+            case JSON -> new Json(out);
+            case CSV -> new Csv(out);
+            case SARIF -> new Sarif(out, baseDir);
+        };
+    }
+
+    /**
+     * @param path the names of the project and its parents, from the root project, separated by colons
+     * @param buildFile {@code null} if the project has no build file
+     */
+    public void startProject(String path, File buildFile)
+    {
+        this.project = path;
+        this.buildFile = buildFile;
+    }
+
+    /**
+     * @param metrics written at the end of a JSON report, the other formats have no place for them
+     */
+    public void setMetrics(RefreshMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Writes a row for a module dependency, project dependencies are skipped.
+     */
+    public void write(Dependency dependency) throws IOException
+    {
+        if (dependency.hasGroup()) writeDependency(dependency);
+    }
+
+    protected abstract void writeDependency(Dependency dependency) throws IOException;
+
+    /**
+     * Every dependency as one object of the {@code dependencies} array, {@code null} values are left out.
+     * The {@code metrics} object follows the array when metrics are set.
+     */
+    private static class Json extends UpdateReportWriter
+    {
+        private final JsonWriter json;
+
+        Json(Writer out) throws IOException
+        {
+            json = new JsonWriter(out);
+            json.setIndent("  ");
+            json.setSerializeNulls(false);
+            json.beginObject();
+            json.name("dependencies").beginArray();
+        }
+
+        @Override
+        protected void writeDependency(Dependency dependency) throws IOException
+        {
+            json.beginObject();
+            json.name("project").value(project);
+            json.name("configuration").value(dependency.getConfiguration());
+            json.name("group").value(dependency.getGroup());
+            json.name("name").value(dependency.getName());
+            json.name("version").value(dependency.getVersion());
+            json.name("latestVersion").value(dependency.getLatestVersion());
+            json.name("repository").value(dependency.getRepository());
+            json.name("error").value(dependency.getError());
+            json.endObject();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            json.endArray();
+            if (metrics != null)
+            {
+                json.name("metrics");
+                metrics.write(json);
+            }
+            json.endObject();
+            json.close();
+        }
+    }
+
+    /**
+     * RFC 4180, one line per dependency after the header line.
+     */
+    private static class Csv extends UpdateReportWriter
+    {
+        private final Writer out;
+
+        Csv(Writer out) throws IOException
+        {
+            this.out = out;
+            out.write("project,configuration,group,name,version,latestVersion,repository,error\r\n");
+        }
+
+        @Override
+        protected void writeDependency(Dependency dependency) throws IOException
+        {
+            writeField(project);
+            out.write(',');
+            writeField(dependency.getConfiguration());
+            out.write(',');
+            writeField(dependency.getGroup());
+            out.write(',');
+            writeField(dependency.getName());
+            out.write(',');
+            writeField(dependency.getVersion());
+            out.write(',');
+            writeField(dependency.getLatestVersion());
+            out.write(',');
+            writeField(dependency.getRepository());
+            out.write(',');
+            writeField(dependency.getError());
+            out.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException
+        {
+            if (value == null) return;
+
+            if (value.indexOf(',') != -1 || value.indexOf('"') != -1 || value.indexOf('\n') != -1 || value.indexOf('\r') != -1)
+            {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            }
+            else
+            {
+                out.write(value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * SARIF 2.1.0 with one result per outdated dependency and per failed check, up to date dependencies are left out.
+     */
+    private static class Sarif extends UpdateReportWriter
+    {
+        private static final String OUTDATED = "outdated-dependency";
+        private static final String CHECK_FAILED = "update-check-failed";
+        private final JsonWriter json;
+        private final File baseDir;
+
+        Sarif(Writer out, File baseDir) throws IOException
+        {
+            this.baseDir = baseDir;
+            json = new JsonWriter(out);
+            json.setIndent("  ");
+            json.setSerializeNulls(false);
+            json.beginObject();
+            json.name("$schema").value("https://json.schemastore.org/sarif-2.1.0.json");
+            json.name("version").value("2.1.0");
+            json.name("runs").beginArray().beginObject();
+            json.name("tool").beginObject().name("driver").beginObject();
+            json.name("name").value("Gradle Dependency Updates");
+            json.name("rules").beginArray();
+            writeRule(OUTDATED, "A newer version of the dependency is available.");
+            writeRule(CHECK_FAILED, "The latest version of the dependency could not be checked.");
+            json.endArray();
+            json.endObject().endObject();
+            json.name("results").beginArray();
+        }
+
+        private void writeRule(String id, String text) throws IOException
+        {
+            json.beginObject();
+            json.name("id").value(id);
+            json.name("shortDescription").beginObject().name("text").value(text).endObject();
+            json.endObject();
+        }
+
+        @Override
+        protected void writeDependency(Dependency dependency) throws IOException
+        {
+            if (dependency.getLatestVersion() != null)
+            {
+                writeResult(OUTDATED, "warning", dependency + " can be updated to " + dependency.getLatestVersion(), dependency);
+            }
+            else if (dependency.getError() != null)
+            {
+                writeResult(CHECK_FAILED, "note", dependency + ": " + dependency.getError(), dependency);
+            }
+        }
+
+        private void writeResult(String ruleId, String level, String message, Dependency dependency) throws IOException
+        {
+            json.beginObject();
+            json.name("ruleId").value(ruleId);
+            json.name("level").value(level);
+            json.name("message").beginObject().name("text").value(message).endObject();
+            json.name("locations").beginArray().beginObject();
+            if (buildFile != null)
+            {
+                json.name("physicalLocation").beginObject().name("artifactLocation").beginObject();
+                writeUri(buildFile);
+                json.endObject().endObject();
+            }
+            json.name("logicalLocations").beginArray().beginObject();
+            json.name("fullyQualifiedName").value(project);
+            json.name("kind").value("module");
+            json.endObject().endArray();
+            json.endObject().endArray();
+            json.name("properties").beginObject();
+            json.name("configuration").value(dependency.getConfiguration());
+            json.name("repository").value(dependency.getRepository());
+            json.endObject();
+            json.endObject();
+        }
+
+        private void writeUri(File file) throws IOException
+        {
+            var base = baseDir != null ? baseDir.toPath().toAbsolutePath().normalize() : null;
+            var path = file.toPath().toAbsolutePath().normalize();
+            if (base != null && path.startsWith(base))
+            {
+                json.name("uri").value(base.relativize(path).toString().replace(File.separatorChar, '/'));
+                json.name("uriBaseId").value("%SRCROOT%");
+            }
+            else
+            {
+                json.name("uri").value(path.toUri().toString());
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            json.endArray();
+            json.endObject().endArray();
+            json.endObject();
+            json.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.tarn2206.tooling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Latest version lookups shared by all open projects, keyed by module and the repository settings.
+ * Concurrent lookups of the same key share one request. The definite results are kept for the cache TTL and the least
+ * recently used entries are dropped first, failed lookups are not kept.
+ */
+public class UpdateResultCache
+{
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * The result of a lookup, independent of the version that is checked.
+     *
+     * @param definite {@code false} if a repository could not be asked, e.g., a timeout or an HTTP 503, such a result is
+     * shared with the callers already waiting for it and not kept
+     */
+    public record Result(String latestVersion, String repository, String error, boolean definite) {}
+
+    /**
+     * @param lookup called when there is no result younger than {@code ttlMillis} and no lookup in flight
+     * @return a future of the shared result, the lookup is cancelled when every caller waiting for it cancels its future
+     */
+    public CompletableFuture<Result> get(String key, long ttlMillis, Supplier<CompletableFuture<Result>> lookup)
+    {
+        Entry entry;
+        var created = false;
+        synchronized (entries)
+        {
+            entry = entries.get(key);
+            if (entry == null || entry.isExpired(ttlMillis))
+            {
+                entry = new Entry();
+                entries.put(key, entry);
+                created = true;
+            }
+            entry.waiters++;
+        }
+        if (created)
+        {
+            var newEntry = entry;
+            newEntry.lookup.whenComplete((result, error) -> complete(key, newEntry, result, error));
+            CompletableFuture<Result> request;
+            try
+            {
+                request = lookup.get();
+            }
+            catch (RuntimeException e)
+            {
+                request = CompletableFuture.failedFuture(e);
+            }
+            forward(request, newEntry.lookup);
+        }
+
+        var copy = entry.future.copy();
+        var joined = entry;
+        copy.whenComplete((result, error) ->
+        {
+            if (copy.isCancelled()) release(key, joined);
+        });
+        return copy;
+    }
+
+    /**
+     * Completes {@code target} with the request, and cancels the request when {@code target} is cancelled.
+     */
+    private static void forward(CompletableFuture<Result> request, CompletableFuture<Result> target)
+    {
+        request.whenComplete((result, error) ->
+        {
+            if (error != null) target.completeExceptionally(error);
+            else target.complete(result);
+        });
+        target.whenComplete((result, error) ->
+        {
+            if (target.isCancelled()) request.cancel(true);
+        });
+    }
+
+    private void release(String key, Entry entry)
+    {
+        synchronized (entries)
+        {
+            if (--entry.waiters > 0 || entry.future.isDone()) return;
+
+            entries.remove(key, entry);
+        }
+        entry.lookup.cancel(true);
+    }
+
+    private void complete(String key, Entry entry, Result result, Throwable error)
+    {
+        if (error != null || !result.definite())
+        {
+            synchronized (entries)
+            {
+                entries.remove(key, entry); // the next caller tries again
+            }
+        }
+        if (error != null)
+        {
+            entry.future.completeExceptionally(error);
+            return;
+        }
+        entry.completedAt = System.currentTimeMillis();
+        entry.future.complete(result);
+    }
+
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    private static class Entry
+    {
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+        /** Created with the entry, so a caller can cancel it before the lookup is started */
+        private final CompletableFuture<Result> lookup = new CompletableFuture<>();
+        /** The callers whose futures are not cancelled, guarded by the map */
+        private int waiters;
+        /** 0 while the lookup is in flight */
+        private volatile long completedAt;
+
+        boolean isExpired(long ttlMillis)
+        {
+            return completedAt != 0 && System.currentTimeMillis() - completedAt > ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.tarn2206.tooling;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A version ordered the way Gradle orders versions.
+ * <ul>
+ *   <li>The version is split into parts at {@code . - _ +} and wherever digits and letters meet.</li>
+ *   <li>Numeric parts are compared as numbers and are higher than any non-numeric part.</li>
+ *   <li>Non-numeric parts are ordered {@code dev} &lt; any other string &lt; {@code rc} &lt; {@code snapshot} &lt;
+ *   {@code final} &lt; {@code ga} &lt; {@code release} &lt; {@code sp}, other strings alphabetically.</li>
+ *   <li>An extra numeric part makes a version higher, an extra non-numeric part makes it lower,
+ *   so {@code 1.0.1 > 1.0 > 1.0-rc1}.</li>
+ * </ul>
+ * Each part is packed into a {@code long} once, the rank of the part in the high byte and the number in the rest,
+ * so most comparisons are plain {@code long} comparisons.
+ */
+public final class Version implements Comparable<Version>
+{
+    private static final int SHIFT = 56;
+    private static final long MAX_NUMBER = (1L << SHIFT) - 1;
+    private static final int DEV = 1;
+    private static final int STRING = 2;
+    private static final int RC = 3;
+    private static final int SNAPSHOT = 4;
+    private static final int FINAL = 5;
+    private static final int GA = 6;
+    private static final int RELEASE = 7;
+    private static final int SP = 8;
+    private static final int NUMBER = 9;
+
+    private final String text;
+    private final long[] keys;
+    /** The parts ranked {@link #STRING}, {@code null} for the others. */
+    private final String[] strings;
+
+    private Version(String text, long[] keys, String[] strings)
+    {
+        this.text = text;
+        this.keys = keys;
+        this.strings = strings;
+    }
+
+    public static Version parse(String text)
+    {
+        var keys = new long[8];
+        String[] strings = null;
+        var n = 0;
+        var length = text.length();
+        var i = 0;
+        while (i < length)
+        {
+            var c = text.charAt(i);
+            if (isSeparator(c))
+            {
+                i++;
+                continue;
+            }
+
+            var start = i;
+            long key;
+            if (isDigit(c))
+            {
+                long number = 0;
+                while (i < length && isDigit(text.charAt(i)))
+                {
+                    number = Math.min(number * 10 + (text.charAt(i++) - '0'), MAX_NUMBER);
+                }
+                key = ((long)NUMBER << SHIFT) | number;
+            }
+            else
+            {
+                while (i < length && !isSeparator(text.charAt(i)) && !isDigit(text.charAt(i))) i++;
+                var part = text.substring(start, i);
+                var rank = rankOf(part);
+                if (rank == STRING)
+                {
+                    if (strings == null) strings = new String[keys.length];
+                    else if (strings.length < keys.length) strings = Arrays.copyOf(strings, keys.length);
+                    strings[n] = part;
+                }
+                key = (long)rank << SHIFT;
+            }
+
+            if (n == keys.length) keys = Arrays.copyOf(keys, n * 2);
+            keys[n++] = key;
+        }
+        return new Version(text, Arrays.copyOf(keys, n), strings);
+    }
+
+    private boolean isNumeric(int part)
+    {
+        return keys[part] >>> SHIFT == NUMBER;
+    }
+
+    @Override
+    public int compareTo(Version other)
+    {
+        var min = Math.min(keys.length, other.keys.length);
+        for (var i = 0; i < min; i++)
+        {
+            var a = keys[i];
+            var b = other.keys[i];
+            if (a != b) return Long.compare(a, b);
+            if (a >>> SHIFT == STRING)
+            {
+                var result = strings[i].compareTo(other.strings[i]);
+                if (result != 0) return result;
+            }
+        }
+
+        if (keys.length == other.keys.length) return 0;
+        return keys.length > min
+               ? (isNumeric(min) ? 1 : -1)
+               : (other.isNumeric(min) ? -1 : 1);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof Version other && compareTo(other) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        var hash = Arrays.hashCode(keys);
+        if (strings != null)
+        {
+            for (var s : strings)
+            {
+                if (s != null) hash = 31 * hash + s.hashCode();
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return text;
+    }
+
+    private static boolean isSeparator(char c)
+    {
+        return c == '.' || c == '-' || c == '_' || c == '+';
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int rankOf(String part)
+    {
+        return switch (part.toLowerCase(Locale.ROOT))
+        {
+            case "dev" -> DEV;
+            case "rc" -> RC;
+            case "snapshot" -> SNAPSHOT;
+            case "final" -> FINAL;
+            case "ga" -> GA;
+            case "release" -> RELEASE;
+            case "sp" -> SP;
+            default -> STRING;
+        };
+    }
+}
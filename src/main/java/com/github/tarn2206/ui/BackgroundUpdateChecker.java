@@ -0,0 +1,417 @@
+package com.github.tarn2206.ui;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.tarn2206.AppSettings;
+import com.github.tarn2206.tooling.BuildFingerprint;
+import com.github.tarn2206.tooling.Dependency;
+import com.github.tarn2206.tooling.DependencySnapshot;
+import com.github.tarn2206.tooling.GradleHelper;
+import com.github.tarn2206.tooling.MavenUtils;
+import com.github.tarn2206.tooling.ProjectInfo;
+import com.github.tarn2206.tooling.RefreshMetrics;
+import com.intellij.ide.IdeEventQueue;
+import com.intellij.notification.NotificationAction;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.util.Alarm;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Checks the dependencies of a project again every {@link AppSettings#getBackgroundCheckHours()} hours while the IDE
+ * is idle, and notifies about the upgrades it did not notify before. It stops as soon as the user is back or indexing
+ * starts, and tries again at the next idle time. The open tool window repaints only the dependencies whose result
+ * changed. The lookups share the result cache with the tool window, so the refresh that follows costs no requests.
+ */
+public class BackgroundUpdateChecker implements Disposable
+{
+    private static final Logger LOG = Logger.getInstance(BackgroundUpdateChecker.class);
+    private static final String TOOL_WINDOW_ID = "Dependency Updates";
+    private static final String NOTIFICATION_GROUP = "Dependency Updates";
+    private static final int POLL_MILLIS = 60_000;
+    /** The IDE is idle when there is no input for this long. */
+    private static final int IDLE_MILLIS = 30_000;
+    /** Dependencies checked between two looks at the idle state. */
+    private static final int BATCH_SIZE = 20;
+    /** Fewer lookups than a refresh, nobody waits for a background check. */
+    private static final int MAX_CONCURRENT_CHECKS = 2;
+    private static final int MAX_REQUESTS_PER_SECOND = 2;
+    private static final int MAX_LISTED_UPGRADES = 5;
+    /** How often a running batch looks at the idle state. */
+    private static final int AWAIT_POLL_MILLIS = 100;
+    private final Project project;
+    private final Alarm alarm;
+    private final AtomicBoolean running = new AtomicBoolean();
+    /** The upgrades already notified by module and version, each is notified once */
+    private final Map<String, String> notified = new ConcurrentHashMap<>();
+    private volatile long checkedAt;
+
+    public BackgroundUpdateChecker(Project project)
+    {
+        this.project = project;
+        alarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+    }
+
+    public static BackgroundUpdateChecker getInstance(Project project)
+    {
+        return project.getService(BackgroundUpdateChecker.class);
+    }
+
+    public static class Starter implements StartupActivity.DumbAware
+    {
+        @Override
+        public void runActivity(@NotNull Project project)
+        {
+            if (!ApplicationManager.getApplication().isUnitTestMode()) getInstance(project).schedule();
+        }
+    }
+
+    private void schedule()
+    {
+        if (!alarm.isDisposed()) alarm.addRequest(this::poll, POLL_MILLIS);
+    }
+
+    private void poll()
+    {
+        try
+        {
+            var settings = AppSettings.getInstance();
+            if (settings.isBackgroundCheck() && isDue(settings) && isIdle() && !running.get())
+            {
+                ApplicationManager.getApplication().invokeLater(this::start, project.getDisposed());
+            }
+        }
+        finally
+        {
+            schedule();
+        }
+    }
+
+    /**
+     * A refresh in the tool window counts as a check, the next one is due the interval after it.
+     */
+    private boolean isDue(AppSettings settings)
+    {
+        var lastCheck = Math.max(checkedAt, DependencySnapshot.getInstance(project).getSavedAt());
+        return System.currentTimeMillis() - lastCheck >= TimeUnit.HOURS.toMillis(settings.getBackgroundCheckHours());
+    }
+
+    private boolean isIdle()
+    {
+        return IdeEventQueue.getInstance().getIdleTime() >= IDLE_MILLIS && !DumbService.isDumb(project);
+    }
+
+    private void start()
+    {
+        var view = findView();
+        if ((view != null && !view.isIdle()) || !running.compareAndSet(false, true)) return;
+
+        new Task.Backgroundable(project, "Check dependency updates in the background", true)
+        {
+            private DependencySnapshot.ProjectEntry snapshot;
+            private final Map<String, Dependency> checked = new HashMap<>();
+            private final Map<String, String> upgrades = new LinkedHashMap<>();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator)
+            {
+                snapshot = DependencySnapshot.getInstance(project).getRoot();
+                var metrics = new RefreshMetrics();
+                check(resolve(indicator, metrics), indicator, metrics);
+                metrics.finish();
+                if (LOG.isDebugEnabled()) LOG.debug(metrics.getSummary());
+            }
+
+            private void check(List<Dependency> dependencies, ProgressIndicator indicator, RefreshMetrics metrics)
+            {
+                var checkList = new ArrayList<Dependency>();
+                for (var dependency : dependencies)
+                {
+                    if (checked.putIfAbsent(key(dependency), dependency) == null) checkList.add(dependency);
+                }
+
+                var settings = getSettings();
+                indicator.setIndeterminate(false);
+                for (var i = 0; i < checkList.size(); i += BATCH_SIZE)
+                {
+                    checkIdle(indicator);
+                    indicator.setFraction((double)i / checkList.size());
+                    var batch = checkList.subList(i, Math.min(i + BATCH_SIZE, checkList.size()));
+                    await(MavenUtils.checkForUpdates(batch, settings, metrics, dependency -> {}), indicator);
+                }
+
+                var known = new HashMap<String, String>();
+                if (snapshot != null) collectLatest(snapshot, known);
+                checked.forEach((key, dependency) ->
+                {
+                    var latest = dependency.getLatestVersion();
+                    if (latest != null && !latest.equals(known.get(key)) && !latest.equals(notified.get(key)))
+                    {
+                        upgrades.put(key, latest);
+                    }
+                });
+            }
+
+            @Override
+            public void onSuccess()
+            {
+                checkedAt = System.currentTimeMillis();
+                saveResults(snapshot, checked);
+                var view = findView();
+                if (view != null) view.showResults(checked.values());
+                if (!upgrades.isEmpty())
+                {
+                    notified.putAll(upgrades);
+                    notifyUpgrades(upgrades);
+                }
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error)
+            {
+                LOG.warn("Background update check failed", error);
+            }
+
+            @Override
+            public void onFinished()
+            {
+                running.set(false);
+            }
+        }.queue();
+    }
+
+    /**
+     * @return the dependencies of the last refresh while no build file changed since, otherwise resolves them again
+     */
+    private List<Dependency> resolve(ProgressIndicator indicator, RefreshMetrics metrics)
+    {
+        var dependencies = new ArrayList<Dependency>();
+        var snapshot = DependencySnapshot.getInstance(project);
+        var basePath = project.getBasePath();
+        if (basePath == null) return dependencies;
+
+        if (snapshot.getRoot() != null && BuildFingerprint.ofRoot(new File(basePath)) == snapshot.getRootFingerprint()
+            && isUpToDate(snapshot.getRoot()))
+        {
+            collect(snapshot.getRoot(), dependencies);
+            return dependencies;
+        }
+
+        indicator.setText("Resolve dependencies");
+        checkIdle(indicator);
+        var info = GradleHelper.getProjectInfo(project, metrics);
+        if (info != null) collect(info, dependencies, indicator, metrics);
+        return dependencies;
+    }
+
+    private static boolean isUpToDate(DependencySnapshot.ProjectEntry entry)
+    {
+        if (entry.getBuildFile() != null && BuildFingerprint.ofProject(new File(entry.getBuildFile())) != entry.getFingerprint())
+        {
+            return false;
+        }
+        return entry.getChildren().stream().allMatch(BackgroundUpdateChecker::isUpToDate);
+    }
+
+    private static void collect(DependencySnapshot.ProjectEntry entry, List<Dependency> dependencies)
+    {
+        for (var e : entry.getDependencies())
+        {
+            var dependency = e.toDependency();
+            if (dependency.hasGroup() && dependency.getVersion() != null)
+            {
+                dependency.setLatestVersion(null);
+                dependencies.add(dependency);
+            }
+        }
+        entry.getChildren().forEach(child -> collect(child, dependencies));
+    }
+
+    private void collect(ProjectInfo info, List<Dependency> dependencies, ProgressIndicator indicator, RefreshMetrics metrics)
+    {
+        var projectDependencies = info.dependencies();
+        if (projectDependencies == null && info.buildFile() != null && info.buildFile().exists())
+        {
+            checkIdle(indicator);
+            projectDependencies = GradleHelper.getDependencies(project, info.buildFile().getParentFile(), metrics);
+        }
+        if (projectDependencies != null)
+        {
+            for (var dependency : projectDependencies)
+            {
+                if (dependency.hasGroup() && dependency.getVersion() != null) dependencies.add(dependency);
+            }
+        }
+        info.children().forEach(child -> collect(child, dependencies, indicator, metrics));
+    }
+
+    /**
+     * Gives way to the user and to indexing, the next idle time starts over and reuses the results checked so far.
+     */
+    private void checkIdle(ProgressIndicator indicator)
+    {
+        if (!isIdle()) indicator.cancel();
+        indicator.checkCanceled();
+    }
+
+    /**
+     * Waits for the checks of a batch, and cancels them as soon as the user is back or the task is cancelled.
+     */
+    private void await(CompletableFuture<Void> future, ProgressIndicator indicator)
+    {
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    future.get(AWAIT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                catch (TimeoutException e)
+                {
+                    checkIdle(indicator);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            future.cancel(true);
+            throw new ProcessCanceledException(e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new CompletionException(e.getCause());
+        }
+        catch (ProcessCanceledException e)
+        {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * The settings of the IDE with fewer lookups in flight and fewer requests per second.
+     */
+    private static AppSettings getSettings()
+    {
+        var settings = AppSettings.getInstance();
+        var background = new AppSettings();
+        XmlSerializerUtil.copyBean(settings, background);
+        background.setMaxConcurrentChecks(Math.min(settings.getMaxConcurrentChecks(), MAX_CONCURRENT_CHECKS));
+        var perSecond = settings.getMaxRequestsPerSecond();
+        background.setMaxRequestsPerSecond(perSecond == 0 ? MAX_REQUESTS_PER_SECOND : Math.min(perSecond, MAX_REQUESTS_PER_SECOND));
+        return background;
+    }
+
+    private static String key(Dependency dependency)
+    {
+        return dependency.getModuleId() + ":" + dependency.getVersion();
+    }
+
+    private static String key(DependencySnapshot.DependencyEntry entry)
+    {
+        return entry.getGroup() + ":" + entry.getName() + ":" + entry.getVersion();
+    }
+
+    private static void collectLatest(DependencySnapshot.ProjectEntry entry, Map<String, String> latest)
+    {
+        for (var e : entry.getDependencies())
+        {
+            if (e.getLatestVersion() != null) latest.put(key(e), e.getLatestVersion());
+        }
+        entry.getChildren().forEach(child -> collectLatest(child, latest));
+    }
+
+    /**
+     * Updates the snapshot that was checked, so the tool window shows the results when it opens.
+     */
+    private void saveResults(DependencySnapshot.ProjectEntry root, Map<String, Dependency> checked)
+    {
+        var snapshot = DependencySnapshot.getInstance(project);
+        if (root == null || snapshot.getRoot() != root) return;
+
+        saveResults(root, checked);
+        snapshot.setSavedAt(System.currentTimeMillis());
+    }
+
+    private static void saveResults(DependencySnapshot.ProjectEntry entry, Map<String, Dependency> checked)
+    {
+        for (var e : entry.getDependencies())
+        {
+            var result = checked.get(key(e));
+            if (result != null)
+            {
+                e.setLatestVersion(result.getLatestVersion());
+                e.setError(result.getError());
+                e.setRepository(result.getRepository());
+            }
+        }
+        entry.getChildren().forEach(child -> saveResults(child, checked));
+    }
+
+    private void notifyUpgrades(Map<String, String> upgrades)
+    {
+        var content = new StringBuilder();
+        upgrades.entrySet().stream().limit(MAX_LISTED_UPGRADES).forEach(e ->
+            content.append(e.getKey()).append(" → ").append(e.getValue()).append("<br>"));
+        if (upgrades.size() > MAX_LISTED_UPGRADES) content.append("and ").append(upgrades.size() - MAX_LISTED_UPGRADES).append(" more");
+
+        var title = upgrades.size() == 1 ? "1 new dependency upgrade" : upgrades.size() + " new dependency upgrades";
+        NotificationGroupManager.getInstance().getNotificationGroup(NOTIFICATION_GROUP)
+                                .createNotification(title, content.toString(), NotificationType.INFORMATION)
+                                .addAction(NotificationAction.createSimpleExpiring("Show", this::showToolWindow))
+                                .notify(project);
+    }
+
+    private void showToolWindow()
+    {
+        var toolWindow = ToolWindowManager.getInstance(project).getToolWindow(TOOL_WINDOW_ID);
+        if (toolWindow != null) toolWindow.show(null);
+    }
+
+    /**
+     * @return {@code null} if the tool window was not opened yet
+     */
+    private DependenciesView findView()
+    {
+        var toolWindow = ToolWindowManager.getInstance(project).getToolWindow(TOOL_WINDOW_ID);
+        var contentManager = toolWindow != null ? toolWindow.getContentManagerIfCreated() : null;
+        if (contentManager == null) return null;
+
+        for (var content : contentManager.getContents())
+        {
+            if (content.getComponent() instanceof DependenciesView view) return view;
+        }
+        return null;
+    }
+
+    @Override
+    public void dispose()
+    {
+        // the alarm is disposed with this service
+    }
+}
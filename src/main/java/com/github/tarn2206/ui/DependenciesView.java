@@ -1,43 +1,92 @@
 package com.github.tarn2206.ui;
 
-import java.util.HashSet;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 
 import com.github.tarn2206.AppSettings;
+import com.github.tarn2206.actions.ExportAction;
+import com.github.tarn2206.actions.MetricsAction;
 import com.github.tarn2206.actions.RefreshAction;
 import com.github.tarn2206.actions.SettingsAction;
+import com.github.tarn2206.tooling.BuildFingerprint;
 import com.github.tarn2206.tooling.Dependency;
+import com.github.tarn2206.tooling.DependencySnapshot;
 import com.github.tarn2206.tooling.GradleHelper;
-import com.github.tarn2206.tooling.MavenUtils;
+import com.github.tarn2206.tooling.ModuleId;
 import com.github.tarn2206.tooling.ProjectInfo;
+import com.github.tarn2206.tooling.RefreshMetrics;
+import com.github.tarn2206.tooling.UpdateCheckScheduler;
+import com.github.tarn2206.tooling.UpdateReportWriter;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.content.ContentFactory;
 import com.intellij.ui.treeStructure.Tree;
+import com.intellij.util.Alarm;
+import com.intellij.util.text.DateFormatUtil;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 
 public class DependenciesView extends SimpleToolWindowPanel
 {
     private static final Logger LOG = Logger.getInstance(DependenciesView.class);
+    private static final String CHANGED = "build file changed";
+    /** Tree events are collected and sent at most once per frame. */
+    private static final int FLUSH_DELAY_MILLIS = 16;
     private final transient Project project;
     private Tree tree;
+    private DefaultTreeModel model;
     private DefaultMutableTreeNode rootNode;
+    private Alarm flushAlarm;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final Queue<Dependency> checkedQueue = new ConcurrentLinkedQueue<>();
+    /** Dependencies reported while Gradle runs, shown with the next flush. */
+    private final Queue<Resolved> resolvedQueue = new ConcurrentLinkedQueue<>();
+    private final Set<DefaultMutableTreeNode> changedNodes = new LinkedHashSet<>();
+    private final Set<DefaultMutableTreeNode> changedStructures = new LinkedHashSet<>();
+    private final Set<DefaultMutableTreeNode> expandNodes = new LinkedHashSet<>();
+    private final Map<Dependency, DefaultMutableTreeNode> nodes = new HashMap<>();
     private final AtomicInteger worker = new AtomicInteger();
-    private final Set<Dependency> updateSet = new HashSet<>();
-    private final Queue<Dependency> updateList = new ConcurrentLinkedQueue<>();
+    private final Map<ModuleId, List<Dependency>> updateMap = new HashMap<>();
+    /** The loaded projects by build file, to resolve again only the projects whose build inputs changed. */
+    private final Map<File, ModuleState> modules = new LinkedHashMap<>();
+    private final Map<DefaultMutableTreeNode, ModuleState> projects = new HashMap<>();
+    private long rootFingerprint;
+    /** The tree shows the snapshot of the last session, the next refresh checks every version again. */
+    private boolean stale;
+    private UpdateCheckScheduler scheduler;
+    /** The metrics of the running or the last refresh, {@code null} before the first refresh. */
+    private volatile RefreshMetrics metrics;
+    /** The tree shows the root project, set on the EDT and read by the actions from a background thread */
+    private volatile boolean hasResult;
 
     public DependenciesView(Project project)
     {
@@ -47,17 +96,36 @@ public class DependenciesView extends SimpleToolWindowPanel
 
     public void initToolWindow(ToolWindow toolWindow)
     {
-        toolWindow.setTitleActions(List.of(new RefreshAction(this), new SettingsAction()));
+        toolWindow.setTitleActions(List.of(new RefreshAction(this), new ExportAction(this), new MetricsAction(this), new SettingsAction()));
 
         var contentFactory = ApplicationManager.getApplication().getService(ContentFactory.class);
         var content = contentFactory.createContent(this, "", false);
         toolWindow.getContentManager().addContent(content);
 
         rootNode = new DefaultMutableTreeNode();
-        tree = new Tree(rootNode);
+        model = new DefaultTreeModel(rootNode);
+        tree = new Tree(model);
         tree.setCellRenderer(new MyTreeCellRenderer());
         setContent(new JBScrollPane(tree));
+        flushAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, toolWindow.getDisposable());
+        scheduler = new UpdateCheckScheduler(project, AppSettings.getInstance(),
+                dependency ->
+                {
+                    checkedQueue.add(dependency);
+                    requestFlush();
+                },
+                this::onCheckDone);
+
+        project.getMessageBus().connect(toolWindow.getDisposable()).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener()
+        {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events)
+            {
+                onFilesChanged(events);
+            }
+        });
 
+        restoreSnapshot();
         update();
     }
 
@@ -66,40 +134,128 @@ public class DependenciesView extends SimpleToolWindowPanel
         return worker.get() == 0;
     }
 
+    public RefreshMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    public boolean hasResult()
+    {
+        return hasResult;
+    }
+
+    /**
+     * Writes the shown results to a file in the background, the refresh is disabled until the file is written.
+     */
+    public void export(File file, UpdateReportWriter.Format format)
+    {
+        var root = projects.get(rootNode);
+        if (root == null || !worker.compareAndSet(0, 1)) return;
+
+        var lastMetrics = metrics;
+        var baseDir = project.getBasePath() != null ? new File(project.getBasePath()) : null;
+        new Task.Backgroundable(project, "Export dependency updates", true)
+        {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator)
+            {
+                try (var writer = UpdateReportWriter.create(format, Files.newBufferedWriter(file.toPath()), baseDir))
+                {
+                    writer.setMetrics(lastMetrics);
+                    writeProject(writer, root, root.dependency.getName());
+                }
+                catch (IOException e)
+                {
+                    throw new IllegalStateException("Cannot write " + file + ": " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error)
+            {
+                LOG.warn(error);
+                Messages.showErrorDialog(project, error.getMessage(), "Export Dependency Updates");
+            }
+
+            @Override
+            public void onFinished()
+            {
+                worker.decrementAndGet();
+            }
+        }.queue();
+    }
+
+    private void writeProject(UpdateReportWriter writer, ModuleState state, String path) throws IOException
+    {
+        writer.startProject(path, state.buildFile);
+        for (var dependency : state.dependencies)
+        {
+            writer.write(dependency);
+        }
+        for (var i = 0; i < state.node.getChildCount(); i++)
+        {
+            var child = projects.get(state.node.getChildAt(i));
+            if (child != null) writeProject(writer, child, path + ":" + child.dependency.getName());
+        }
+    }
+
+    /**
+     * Loads everything the first time and after the root build inputs change, otherwise resolves again only the
+     * projects whose build file changed. When nothing changed, the versions are checked again.
+     */
     public void update()
     {
         if (worker.get() > 0) return;
         worker.set(1);
+        metrics = new RefreshMetrics();
 
-        updateSet.clear();
-        updateList.clear();
-        rootNode.removeAllChildren();
-        rootNode.setUserObject("loading...");
-        tree.updateUI();
+        if (modules.isEmpty() || project.getBasePath() == null)
+        {
+            reload();
+            return;
+        }
 
-        new Task.Backgroundable(project, "Load project " + project.getName(), true)
+        var fingerprints = new LinkedHashMap<File, Long>();
+        modules.forEach((buildFile, state) -> fingerprints.put(buildFile, state.fingerprint));
+        var rootDir = new File(project.getBasePath());
+        new Task.Backgroundable(project, "Find changed build files", true)
         {
-            private ProjectInfo info;
+            private boolean rootChanged;
+            private final Map<File, Long> changed = new LinkedHashMap<>();
 
             @Override
             public void run(@NotNull ProgressIndicator indicator)
             {
-                info = GradleHelper.getProjectInfo(project);
+                rootChanged = BuildFingerprint.ofRoot(rootDir) != rootFingerprint;
+                if (rootChanged) return;
+
+                fingerprints.forEach((buildFile, fingerprint) ->
+                {
+                    var current = BuildFingerprint.ofProject(buildFile);
+                    if (current != fingerprint) changed.put(buildFile, current);
+                });
             }
 
             @Override
             public void onSuccess()
             {
-                if (info != null)
+                modules.values().forEach(e ->
                 {
-                    addProject(rootNode, info, AppSettings.getInstance());
-                }
-                else
+                    if (CHANGED.equals(e.dependency.getStatus()))
+                    {
+                        e.dependency.setStatus(null);
+                        nodeChanged(e.node);
+                    }
+                });
+                if (rootChanged)
                 {
-                    rootNode.setUserObject("Cannot load project info");
+                    reload();
+                    return;
                 }
-                tree.updateUI();
-                worker.decrementAndGet();
+                if (!changed.isEmpty()) resolveChanged(changed);
+                if (changed.isEmpty() || stale) recheck();
+                stale = false;
+                workDone();
             }
 
             @Override
@@ -110,143 +266,628 @@ public class DependenciesView extends SimpleToolWindowPanel
         }.queue();
     }
 
-    private void addProject(DefaultMutableTreeNode node, ProjectInfo info, AppSettings settings)
+    /**
+     * Loads the project structure and all dependencies again, the current tree stays until the new one is loaded.
+     */
+    private void reload()
     {
-        var dependency = new Dependency(info.name());
-        node.setUserObject(dependency);
+        stale = false;
+        if (rootNode.getUserObject() instanceof Dependency root && !projects.isEmpty())
+        {
+            root.setStatus("loading...");
+        }
+        else
+        {
+            clear();
+            rootNode.setUserObject("loading...");
+        }
+        nodeChanged(rootNode);
 
-        if (info.buildFile().exists())
+        new Task.Backgroundable(project, "Load project " + project.getName(), true)
         {
-            worker.incrementAndGet();
-            dependency.setStatus("loading...");
-            new Task.Backgroundable(project, "Retrieve " + info.name() + " dependencies", true)
+            private ProjectInfo info;
+            private long fingerprint;
+            private final Map<File, Long> fingerprints = new HashMap<>();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator)
             {
-                private List<Dependency> dependencies;
+                info = GradleHelper.getProjectInfo(project, metrics);
+                if (info == null) return;
+
+                fingerprint = BuildFingerprint.ofRoot(new File(project.getBasePath()));
+                addFingerprints(info);
+            }
 
-                @Override
-                public void run(@NotNull ProgressIndicator indicator)
+            private void addFingerprints(ProjectInfo info)
+            {
+                if (info.buildFile() != null && info.buildFile().exists())
                 {
-                    dependencies = GradleHelper.getDependencies(project, info.buildFile().getParentFile());
+                    fingerprints.put(info.buildFile(), BuildFingerprint.ofProject(info.buildFile()));
                 }
+                info.children().forEach(this::addFingerprints);
+            }
 
-                @Override
-                public void onSuccess()
+            @Override
+            public void onSuccess()
+            {
+                clear();
+                if (info != null)
                 {
-                    dependency.setStatus(null);
-                    addDependencies(node, dependencies, settings);
+                    rootFingerprint = fingerprint;
+                    addProject(rootNode, info, fingerprints);
                 }
-
-                @Override
-                public void onThrowable(@NotNull Throwable error)
+                else
                 {
-                    dependency.setStatus(null);
-                    catchError(node, error);
+                    rootNode.setUserObject("Cannot load project info");
                 }
-            }.queue();
+                workDone();
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error)
+            {
+                catchError(rootNode, error);
+            }
+        }.queue();
+    }
+
+    private void clear()
+    {
+        updateMap.clear();
+        modules.clear();
+        projects.clear();
+        hasResult = false;
+        nodes.clear();
+        rootNode.removeAllChildren();
+        structureChanged(rootNode);
+    }
+
+    private ModuleState addState(DefaultMutableTreeNode node, Dependency dependency, File buildFile, long fingerprint)
+    {
+        var state = new ModuleState(node, dependency, buildFile, fingerprint);
+        projects.put(node, state);
+        if (node == rootNode) hasResult = true;
+        if (buildFile != null)
+        {
+            modules.put(buildFile, state);
+        }
+        return state;
+    }
+
+    private void addProject(DefaultMutableTreeNode node, ProjectInfo info, Map<File, Long> fingerprints)
+    {
+        var dependency = new Dependency(info.name());
+        node.setUserObject(dependency);
+
+        var hasBuildFile = info.buildFile() != null && info.buildFile().exists();
+        var state = addState(node, dependency, hasBuildFile ? info.buildFile() : null, fingerprints.getOrDefault(info.buildFile(), 0L));
+        if (info.dependencies() != null)
+        {
+            worker.incrementAndGet();
+            state.dependencies = info.dependencies();
+            addDependencies(node, info.dependencies());
+        }
+        else if (hasBuildFile)
+        {
+            resolve(info.buildFile(), state);
         }
 
         for (var sub : info.children())
         {
             var child = new DefaultMutableTreeNode();
             node.add(child);
-            addProject(child, sub, settings);
+            addProject(child, sub, fingerprints);
         }
 
         if (node.getChildCount() > 0)
         {
-            tree.expandPath(new TreePath(node.getPath()));
+            structureChanged(node);
+            expand(node);
         }
     }
 
-    private void addDependencies(DefaultMutableTreeNode node, List<Dependency> dependencies, AppSettings settings)
+    private void resolve(File buildFile, ModuleState state)
     {
-        var n = 0;
+        worker.incrementAndGet();
+        state.dependency.setStatus("loading...");
+        nodeChanged(state.node);
+        new Task.Backgroundable(project, "Retrieve " + state.dependency.getName() + " dependencies", true)
+        {
+            private List<Dependency> dependencies;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator)
+            {
+                dependencies = GradleHelper.getDependencies(project, buildFile.getParentFile(), metrics, dependency ->
+                {
+                    resolvedQueue.add(new Resolved(state, dependency));
+                    requestFlush();
+                });
+            }
+
+            @Override
+            public void onSuccess()
+            {
+                drainResolved();
+                state.dependency.setStatus(null);
+                nodeChanged(state.node);
+                var shown = Set.copyOf(state.dependencies);
+                state.dependencies = dependencies;
+                addDependencies(state.node, dependencies.stream().filter(e -> !shown.contains(e)).toList());
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error)
+            {
+                state.dependency.setStatus(null);
+                nodeChanged(state.node);
+                catchError(state.node, error);
+            }
+        }.queue();
+    }
+
+    /**
+     * Replaces the dependencies of the changed projects and checks only those, the other projects keep their results.
+     */
+    private void resolveChanged(Map<File, Long> changed)
+    {
+        changed.forEach((buildFile, fingerprint) ->
+        {
+            var state = modules.get(buildFile);
+            state.fingerprint = fingerprint;
+            removeDependencies(state);
+            resolve(buildFile, state);
+        });
+    }
+
+    private void removeDependencies(ModuleState state)
+    {
+        var indices = new ArrayList<Integer>();
+        var removed = new ArrayList<Object>();
+        for (var i = 0; i < state.node.getChildCount(); i++)
+        {
+            var child = state.node.getChildAt(i);
+            if (!projects.containsKey(child))
+            {
+                indices.add(i);
+                removed.add(child);
+            }
+        }
+        for (var i = indices.size() - 1; i >= 0; i--)
+        {
+            state.node.remove(indices.get(i));
+        }
+        nodesRemoved(state.node, indices.stream().mapToInt(Integer::intValue).toArray(), removed.toArray());
+        for (var dependency : state.dependencies)
+        {
+            nodes.remove(dependency);
+            var sameModule = updateMap.get(dependency.getModuleId());
+            if (sameModule == null) continue;
+
+            sameModule.remove(dependency);
+            if (sameModule.isEmpty()) updateMap.remove(dependency.getModuleId());
+        }
+        state.dependencies = List.of();
+    }
+
+    /**
+     * Checks one dependency per module and version again, without resolving the projects.
+     */
+    private void recheck()
+    {
+        var checkList = new ArrayList<Dependency>();
+        for (var sameModule : updateMap.values())
+        {
+            var versions = new HashMap<String, Dependency>();
+            for (var dependency : sameModule)
+            {
+                dependency.setLatestVersion(null);
+                dependency.setStatus("check for updates...");
+                nodeChanged(dependency);
+                if (versions.putIfAbsent(dependency.getVersion(), dependency) == null) checkList.add(dependency);
+            }
+        }
+        if (!checkList.isEmpty() && scheduler.submit(checkList, metrics))
+        {
+            worker.incrementAndGet();
+        }
+    }
+
+    private void addDependencies(DefaultMutableTreeNode node, List<Dependency> dependencies)
+    {
+        insertDependencies(node, dependencies);
+        expand(node);
+        workDone();
+    }
+
+    /**
+     * Inserts the dependencies after those already shown and before the subprojects, and checks them for updates.
+     */
+    private void insertDependencies(DefaultMutableTreeNode node, List<Dependency> dependencies)
+    {
+        var start = 0;
+        while (start < node.getChildCount() && !projects.containsKey(node.getChildAt(start)))
+        {
+            start++;
+        }
+        var checkList = new ArrayList<Dependency>();
+        var n = start;
         for (var dependency : dependencies)
         {
             var child = new DefaultMutableTreeNode(dependency);
             node.insert(child, n++);
+            nodes.put(dependency, child);
 
-            if (dependency.hasGroup() && dependency.getVersion() != null)
+            if (dependency.hasGroup() && dependency.getVersion() != null && addToUpdateMap(dependency))
             {
-                checkForUpdate(dependency, child, settings);
+                checkList.add(dependency);
             }
         }
-        worker.decrementAndGet();
-        tree.expandPath(new TreePath(node.getPath()));
-        tree.updateUI();
+        if (!checkList.isEmpty() && scheduler.submit(checkList, metrics))
+        {
+            worker.incrementAndGet();
+        }
+        nodesInserted(node, IntStream.range(start, n).toArray());
     }
 
-    private void checkForUpdate(Dependency dependency, DefaultMutableTreeNode node, AppSettings settings)
+    /**
+     * @return {@code true} if the module is not checked yet for this version
+     */
+    private boolean addToUpdateMap(Dependency dependency)
     {
         dependency.setStatus("check for updates...");
-        tree.updateUI();
-        updateList.add(dependency);
-        if (updateSet.stream().anyMatch(e -> e.sameModule(dependency)))
-        {
-            updateList.stream()
-                      .filter(e -> e.sameModule(dependency) && !e.equals(dependency) && e.getStatus() == null)
-                      .findAny()
-                      .ifPresent(e ->
-                      {
-                          dependency.setLatestVersion(e.getLatestVersion());
-                          dependency.setStatus(null);
-                          tree.updateUI();
-                      });
-            return;
+        var sameModule = updateMap.computeIfAbsent(dependency.getModuleId(), key -> new ArrayList<>());
+        var sameVersion = sameModule.stream().filter(e -> dependency.getVersion().equals(e.getVersion())).findFirst().orElse(null);
+        sameModule.add(dependency);
+        if (sameVersion == null) return true;
+
+        if (sameVersion.getStatus() == null)
+        {
+            copyResult(sameVersion, dependency);
         }
+        return false;
+    }
 
-        updateSet.add(dependency);
-        worker.incrementAndGet();
-        new Task.Backgroundable(project, "Check dependency updates", true)
+    private void onChecked(Dependency dependency)
+    {
+        dependency.setStatus(null);
+        nodeChanged(dependency);
+        for (var e : updateMap.getOrDefault(dependency.getModuleId(), List.of()))
         {
-            @Override
-            public void run(@NotNull ProgressIndicator indicator)
+            if (e != dependency && dependency.getVersion().equals(e.getVersion()))
             {
-                MavenUtils.checkForUpdate(dependency, settings);
+                copyResult(dependency, e);
+                nodeChanged(e);
             }
+        }
+    }
 
-            @Override
-            public void onSuccess()
+    /**
+     * Shows the results of checks made outside the view, e.g., in the background. Only the dependencies whose result
+     * changed are repainted, nothing is resolved or checked again. Does nothing while a refresh is running.
+     */
+    public void showResults(Collection<Dependency> results)
+    {
+        if (!isIdle()) return;
+
+        for (var result : results)
+        {
+            for (var dependency : updateMap.getOrDefault(result.getModuleId(), List.of()))
             {
-                dependency.setStatus(null);
-                updateList.stream()
-                          .filter(e -> e.sameModule(dependency) && !e.equals(dependency))
-                          .forEach(e ->
-                                   {
-                                       e.setLatestVersion(dependency.getLatestVersion());
-                                       e.setStatus(null);
-                                   });
-                tree.updateUI();
-                worker.decrementAndGet();
+                if (!dependency.getVersion().equals(result.getVersion()) || hasSameResult(result, dependency)) continue;
+
+                copyResult(result, dependency);
+                nodeChanged(dependency);
             }
+        }
+    }
 
-            @Override
-            public void onThrowable(@NotNull Throwable error)
+    private static boolean hasSameResult(Dependency a, Dependency b)
+    {
+        return Objects.equals(a.getLatestVersion(), b.getLatestVersion()) && Objects.equals(a.getError(), b.getError())
+               && Objects.equals(a.getRepository(), b.getRepository());
+    }
+
+    private static void copyResult(Dependency checked, Dependency dependency)
+    {
+        dependency.setLatestVersion(checked.getLatestVersion());
+        dependency.setError(checked.getError());
+        dependency.setRepository(checked.getRepository());
+        dependency.setStatus(null);
+    }
+
+    private void onCheckDone()
+    {
+        drainChecked();
+        for (var sameModule : updateMap.values())
+        {
+            for (var e : sameModule)
             {
-                dependency.setStatus(null);
-                catchError(node, error);
+                if (e.getStatus() != null)
+                {
+                    e.setStatus(null);
+                    nodeChanged(e);
+                }
             }
-        }.queue();
+        }
+        workDone();
+    }
+
+    private void workDone()
+    {
+        if (worker.decrementAndGet() == 0)
+        {
+            if (metrics != null) metrics.finish();
+            if (rootNode.getUserObject() instanceof Dependency root)
+            {
+                root.setStatus(null);
+                nodeChanged(rootNode);
+            }
+            saveSnapshot();
+        }
+    }
+
+    private void saveSnapshot()
+    {
+        var root = projects.get(rootNode);
+        if (root == null) return;
+
+        var snapshot = DependencySnapshot.getInstance(project);
+        snapshot.setRoot(toEntry(root));
+        snapshot.setRootFingerprint(rootFingerprint);
+        snapshot.setSavedAt(System.currentTimeMillis());
+    }
+
+    private DependencySnapshot.ProjectEntry toEntry(ModuleState state)
+    {
+        var entry = new DependencySnapshot.ProjectEntry();
+        entry.setName(state.dependency.getName());
+        entry.setBuildFile(state.buildFile != null ? state.buildFile.getPath() : null);
+        entry.setFingerprint(state.fingerprint);
+        state.dependencies.forEach(e -> entry.getDependencies().add(new DependencySnapshot.DependencyEntry(e)));
+        for (var i = 0; i < state.node.getChildCount(); i++)
+        {
+            var child = projects.get(state.node.getChildAt(i));
+            if (child != null) entry.getChildren().add(toEntry(child));
+        }
+        return entry;
+    }
+
+    /**
+     * Shows the result of the last session right away, marked as cached until the refresh is done.
+     */
+    private void restoreSnapshot()
+    {
+        var snapshot = DependencySnapshot.getInstance(project);
+        if (snapshot.getRoot() == null) return;
+
+        rootFingerprint = snapshot.getRootFingerprint();
+        restore(rootNode, snapshot.getRoot());
+        var root = (Dependency)rootNode.getUserObject();
+        root.setStatus("cached " + DateFormatUtil.formatPrettyDateTime(snapshot.getSavedAt()) + ", refreshing...");
+        stale = true;
+        structureChanged(rootNode);
+    }
+
+    private void restore(DefaultMutableTreeNode node, DependencySnapshot.ProjectEntry entry)
+    {
+        var dependency = new Dependency(entry.getName());
+        node.setUserObject(dependency);
+        var buildFile = entry.getBuildFile() != null ? new File(entry.getBuildFile()) : null;
+        var state = addState(node, dependency, buildFile, entry.getFingerprint());
+        state.dependencies = entry.getDependencies().stream().map(DependencySnapshot.DependencyEntry::toDependency).toList();
+
+        var n = 0;
+        for (var e : state.dependencies)
+        {
+            var child = new DefaultMutableTreeNode(e);
+            node.insert(child, n++);
+            nodes.put(e, child);
+            if (e.hasGroup() && e.getVersion() != null)
+            {
+                updateMap.computeIfAbsent(e.getModuleId(), key -> new ArrayList<>()).add(e);
+            }
+        }
+        for (var sub : entry.getChildren())
+        {
+            var child = new DefaultMutableTreeNode();
+            node.add(child);
+            restore(child, sub);
+        }
+        expand(node);
+    }
+
+    /**
+     * Marks the projects whose build inputs changed, the next refresh resolves them again.
+     */
+    private void onFilesChanged(List<? extends VFileEvent> events)
+    {
+        for (var event : events)
+        {
+            var file = new File(event.getPath());
+            if (!BuildFingerprint.isBuildInput(file.getName())) continue;
+
+            // version catalogs are in the gradle directory of the root project
+            var dir = BuildFingerprint.isCatalog(file.getName()) ? file.getParentFile().getParentFile() : file.getParentFile();
+            for (var e : modules.entrySet())
+            {
+                if (e.getKey().getParentFile().equals(dir) && e.getValue().dependency.getStatus() == null)
+                {
+                    e.getValue().dependency.setStatus(CHANGED);
+                    nodeChanged(e.getValue().node);
+                }
+            }
+        }
+    }
+
+    private void nodeChanged(Dependency dependency)
+    {
+        var node = nodes.get(dependency);
+        if (node != null) nodeChanged(node);
+    }
+
+    private void nodeChanged(DefaultMutableTreeNode node)
+    {
+        changedNodes.add(node);
+        requestFlush();
+    }
+
+    private void structureChanged(DefaultMutableTreeNode node)
+    {
+        changedStructures.add(node);
+        requestFlush();
+    }
+
+    /**
+     * Sends the insert right away, so the expanded subprojects of the parent stay expanded. A pending structure change
+     * of the parent or above reloads it anyway.
+     */
+    private void nodesInserted(DefaultMutableTreeNode parent, int[] indices)
+    {
+        if (indices.length > 0 && !isReloadPending(parent)) model.nodesWereInserted(parent, indices);
+    }
+
+    /**
+     * @param indices the indices of the removed children before the removal, in ascending order
+     */
+    private void nodesRemoved(DefaultMutableTreeNode parent, int[] indices, Object[] removed)
+    {
+        if (indices.length > 0 && !isReloadPending(parent)) model.nodesWereRemoved(parent, indices, removed);
+    }
+
+    private boolean isReloadPending(DefaultMutableTreeNode node)
+    {
+        return node.getRoot() != rootNode || changedStructures.stream().anyMatch(e -> e.isNodeDescendant(node));
+    }
+
+    private void expand(DefaultMutableTreeNode node)
+    {
+        expandNodes.add(node);
+        requestFlush();
+    }
+
+    /**
+     * Can be called from any thread, the changes collected until the flush are sent in one batch.
+     */
+    private void requestFlush()
+    {
+        if (flushPending.compareAndSet(false, true))
+        {
+            flushAlarm.addRequest(this::flush, FLUSH_DELAY_MILLIS);
+        }
+    }
+
+    private void drainChecked()
+    {
+        Dependency checked;
+        while ((checked = checkedQueue.poll()) != null)
+        {
+            onChecked(checked);
+        }
+    }
+
+    /**
+     * Shows the dependencies reported so far by the running resolves, those of the projects removed meanwhile are dropped.
+     */
+    private void drainResolved()
+    {
+        var resolved = new LinkedHashMap<ModuleState, List<Dependency>>();
+        Resolved e;
+        while ((e = resolvedQueue.poll()) != null)
+        {
+            if (projects.get(e.state().node) == e.state())
+            {
+                resolved.computeIfAbsent(e.state(), key -> new ArrayList<>()).add(e.dependency());
+            }
+        }
+        resolved.forEach((state, dependencies) ->
+        {
+            state.dependencies = Stream.concat(state.dependencies.stream(), dependencies.stream()).toList();
+            insertDependencies(state.node, dependencies);
+            expand(state.node);
+        });
+    }
+
+    private void flush()
+    {
+        flushPending.set(false);
+        drainResolved();
+        drainChecked();
+
+        for (var node : changedStructures)
+        {
+            if (node.getRoot() == rootNode && changedStructures.stream().noneMatch(e -> e != node && e.isNodeDescendant(node)))
+            {
+                model.nodeStructureChanged(node);
+            }
+        }
+
+        var changedByParent = new HashMap<DefaultMutableTreeNode, List<Integer>>();
+        for (var node : changedNodes)
+        {
+            if (node.getRoot() != rootNode || changedStructures.stream().anyMatch(e -> e.isNodeDescendant(node))) continue;
+
+            var parent = (DefaultMutableTreeNode)node.getParent();
+            if (parent == null)
+            {
+                model.nodeChanged(node);
+            }
+            else
+            {
+                changedByParent.computeIfAbsent(parent, key -> new ArrayList<>()).add(parent.getIndex(node));
+            }
+        }
+        changedByParent.forEach((parent, indices) -> model.nodesChanged(parent, indices.stream().mapToInt(Integer::intValue).toArray()));
+
+        for (var node : expandNodes)
+        {
+            if (node.getRoot() == rootNode) tree.expandPath(new TreePath(node.getPath()));
+        }
+        changedStructures.clear();
+        changedNodes.clear();
+        expandNodes.clear();
     }
 
     private void catchError(DefaultMutableTreeNode node, Throwable tr)
     {
-        worker.decrementAndGet();
         var rootCause = ExceptionUtils.getRootCause(tr);
         if (rootCause == null) rootCause = tr;
 
         if (node.equals(rootNode))
         {
+            clear();
             rootNode.setUserObject(rootCause);
+            structureChanged(node);
         }
         else
         {
             var child = new DefaultMutableTreeNode(rootCause);
             node.insert(child, 0);
+            nodesInserted(node, new int[] { 0 });
         }
-        tree.expandPath(new TreePath(node.getPath()));
-        tree.updateUI();
+        expand(node);
+        workDone();
 
         LOG.error(tr);
     }
+
+    private static class ModuleState
+    {
+        private final DefaultMutableTreeNode node;
+        private final Dependency dependency;
+        private final File buildFile;
+        private long fingerprint;
+        private List<Dependency> dependencies = List.of();
+
+        ModuleState(DefaultMutableTreeNode node, Dependency dependency, File buildFile, long fingerprint)
+        {
+            this.node = node;
+            this.dependency = dependency;
+            this.buildFile = buildFile;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private record Resolved(ModuleState state, Dependency dependency) {}
 }
@@ -0,0 +1,48 @@
+package com.github.tarn2206.ui;
+
+import java.awt.Dimension;
+import javax.swing.Action;
+import javax.swing.JComponent;
+
+import com.github.tarn2206.tooling.RefreshMetrics;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.components.JBTextArea;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.UIUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The timings and counters of the last refresh.
+ */
+public class MetricsDialog extends DialogWrapper
+{
+    private final RefreshMetrics metrics;
+
+    public MetricsDialog(Project project, RefreshMetrics metrics)
+    {
+        super(project, false);
+        this.metrics = metrics;
+        setTitle("Refresh Metrics");
+        init();
+    }
+
+    @Override
+    protected JComponent createCenterPanel()
+    {
+        var text = new JBTextArea(metrics.getSummary());
+        text.setEditable(false);
+        text.setFont(UIUtil.getFontWithFallback("Monospaced", 0, UIUtil.getLabelFont().getSize()));
+        text.setBorder(JBUI.Borders.empty(5));
+        var scrollPane = new JBScrollPane(text);
+        scrollPane.setPreferredSize(new Dimension(720, 400));
+        return scrollPane;
+    }
+
+    @Override
+    protected Action @NotNull [] createActions()
+    {
+        return new Action[] { getOKAction() };
+    }
+}
@@ -4,12 +4,14 @@ import java.awt.BorderLayout;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import javax.swing.DefaultCellEditor;
 import javax.swing.JPanel;
 import javax.swing.ListSelectionModel;
 import javax.swing.table.DefaultTableModel;
 
 import com.github.tarn2206.AppSettings;
 import com.intellij.openapi.actionSystem.ActionToolbarPosition;
+import com.intellij.openapi.ui.ComboBox;
 import com.intellij.ui.TableUtil;
 import com.intellij.ui.ToolbarDecorator;
 import com.intellij.ui.table.JBTable;
@@ -23,7 +25,7 @@ public class RepositoryTable extends JPanel
 
     public RepositoryTable()
     {
-        model = new DefaultTableModel(null, new String[] { "", "Name", "URL" })
+        model = new DefaultTableModel(null, new String[] { "", "Name", "Type", "URL", "Include Groups", "Exclude Groups", "Connect (s)", "Read (s)" })
         {
             @Override
             public int getRowCount()
@@ -34,7 +36,10 @@ public class RepositoryTable extends JPanel
             @Override
             public Class<?> getColumnClass(int columnIndex)
             {
-                return columnIndex == 0 ? Boolean.class : String.class;
+                if (columnIndex == 0) return Boolean.class;
+                if (columnIndex == 2) return AppSettings.RepoType.class;
+                if (columnIndex >= 6) return Integer.class;
+                return String.class;
             }
 
             @Override
@@ -43,7 +48,12 @@ public class RepositoryTable extends JPanel
                 var repo = repos.get(row);
                 if (column == 0) return repo.isActive();
                 if (column == 1) return repo.getName();
-                if (column == 2) return repo.getUrl();
+                if (column == 2) return repo.getType();
+                if (column == 3) return repo.getUrl();
+                if (column == 4) return repo.getIncludeGroups();
+                if (column == 5) return repo.getExcludeGroups();
+                if (column == 6) return repo.getConnectTimeout();
+                if (column == 7) return repo.getReadTimeout();
                 return null;
             }
 
@@ -53,7 +63,12 @@ public class RepositoryTable extends JPanel
                 var repo = repos.get(row);
                 if (column == 0) repo.setActive((boolean)value);
                 else if (column == 1) repo.setName((String)value);
-                else if (column == 2) repo.setUrl((String)value);
+                else if (column == 2) repo.setType((AppSettings.RepoType)value);
+                else if (column == 3) repo.setUrl((String)value);
+                else if (column == 4) repo.setIncludeGroups((String)value);
+                else if (column == 5) repo.setExcludeGroups((String)value);
+                else if (column == 6 && value != null) repo.setConnectTimeout((int)value);
+                else if (column == 7 && value != null) repo.setReadTimeout((int)value);
             }
         };
         table = new JBTable(model);
@@ -64,6 +79,7 @@ public class RepositoryTable extends JPanel
         table.setShowVerticalLines(false);
         table.getTableHeader().setReorderingAllowed(false);
         table.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setDefaultEditor(AppSettings.RepoType.class, new DefaultCellEditor(new ComboBox<>(AppSettings.RepoType.values())));
 
         var tablePanel = ToolbarDecorator.createDecorator(table)
                                          .setAddAction(e -> addEntry())
@@ -77,6 +93,11 @@ public class RepositoryTable extends JPanel
 
         setColumnWidth(0, 30);
         setColumnWidth(1, 200);
+        setColumnWidth(2, 110);
+        table.getColumnModel().getColumn(4).setPreferredWidth(120);
+        table.getColumnModel().getColumn(5).setPreferredWidth(120);
+        setColumnWidth(6, 80);
+        setColumnWidth(7, 80);
     }
 
     public List<AppSettings.Repo> getRepos()
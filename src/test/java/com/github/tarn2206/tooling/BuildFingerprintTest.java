@@ -0,0 +1,86 @@
+package com.github.tarn2206.tooling;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BuildFingerprintTest
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recognizesBuildInputs()
+    {
+        assertTrue(BuildFingerprint.isBuildInput("build.gradle"));
+        assertTrue(BuildFingerprint.isBuildInput("settings.gradle.kts"));
+        assertTrue(BuildFingerprint.isBuildInput("gradle.properties"));
+        assertTrue(BuildFingerprint.isBuildInput("libs.versions.toml"));
+        assertFalse(BuildFingerprint.isBuildInput("Main.java"));
+        assertFalse(BuildFingerprint.isBuildInput("gradle-wrapper.properties"));
+    }
+
+    @Test
+    public void rootChangesWithSettingsAndCatalogs() throws IOException
+    {
+        var root = folder.getRoot();
+        write(root, "settings.gradle", "include 'app'");
+        write(root, "build.gradle", "plugins { id 'java' }");
+        var catalog = write(new File(root, "gradle"), "libs.versions.toml", "[versions]\nguava = \"33.4.0-jre\"");
+        var fingerprint = BuildFingerprint.ofRoot(root);
+
+        assertEquals(fingerprint, BuildFingerprint.ofRoot(root));
+        write(root, "README.md", "not a build input");
+        assertEquals(fingerprint, BuildFingerprint.ofRoot(root));
+
+        write(catalog.getParentFile(), catalog.getName(), "[versions]\nguava = \"33.4.5-jre\"");
+        var changed = BuildFingerprint.ofRoot(root);
+        assertNotEquals(fingerprint, changed);
+
+        write(root, "settings.gradle", "include 'app', 'lib'");
+        assertNotEquals(changed, BuildFingerprint.ofRoot(root));
+    }
+
+    @Test
+    public void projectChangesWithBuildFileAndProperties() throws IOException
+    {
+        var buildFile = write(folder.newFolder("app"), "build.gradle", "dependencies { implementation 'org.slf4j:slf4j-api:2.0.17' }");
+        var fingerprint = BuildFingerprint.ofProject(buildFile);
+
+        write(buildFile.getParentFile(), "gradle.properties", "slf4jVersion=2.0.17");
+        var withProperties = BuildFingerprint.ofProject(buildFile);
+        assertNotEquals(fingerprint, withProperties);
+
+        write(buildFile.getParentFile(), "build.gradle", "dependencies { implementation \"org.slf4j:slf4j-api:$slf4jVersion\" }");
+        assertNotEquals(withProperties, BuildFingerprint.ofProject(buildFile));
+    }
+
+    @Test
+    public void emptyFileDiffersFromMissingFile() throws IOException
+    {
+        var dir = folder.newFolder("app");
+        var buildFile = new File(dir, "build.gradle");
+        var missing = BuildFingerprint.ofProject(buildFile);
+
+        write(dir, "build.gradle", "");
+
+        assertNotEquals(missing, BuildFingerprint.ofProject(buildFile));
+    }
+
+    private static File write(File dir, String name, String text) throws IOException
+    {
+        Files.createDirectories(dir.toPath());
+        var file = new File(dir, name);
+        Files.writeString(file.toPath(), text, UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.tarn2206.tooling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.Test;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyReportParserTest
+{
+    @Test
+    public void parsesTheFixtureReport() throws IOException
+    {
+        var dependencies = parse(readFixture(), Integer.MAX_VALUE);
+
+        assertEquals(868, dependencies.size());
+        assertTrue(dependencies.stream().allMatch(e -> e.getVersion() == null || !e.getVersion().contains(" ")));
+        assertTrue(dependencies.stream().allMatch(e -> e.getConfiguration() != null));
+        assertTrue(dependencies.stream().noneMatch(e -> "project ".equals(e.getGroup())));
+        // a version conflict keeps the declared version
+        assertTrue(find(dependencies, "net.minidev:accessors-smart:2.5.0"));
+        // a constraint keeps the strict version
+        assertTrue(find(dependencies, "org.apache.logging.log4j:log4j-api:2.21.1"));
+        // a dependency that is not resolved in this block
+        assertTrue(find(dependencies, "org.springframework:spring-webmvc:6.1.6"));
+    }
+
+    @Test
+    public void chunksSplitInTheMiddleOfALineGiveTheSameResult() throws IOException
+    {
+        var report = readFixture();
+        var expected = describe(parse(report, Integer.MAX_VALUE));
+
+        for (var chunkSize : new int[] { 1, 7, 4096 })
+        {
+            assertEquals("chunk size " + chunkSize, expected, describe(parse(report, chunkSize)));
+        }
+    }
+
+    @Test
+    public void singleBytesGiveTheSameResult() throws IOException
+    {
+        var report = readFixture();
+        var dependencies = new ArrayList<Dependency>();
+        var parser = new DependencyReportParser(dependencies::add);
+        for (var b : report)
+        {
+            parser.write(b);
+        }
+        parser.close();
+
+        assertEquals(describe(parse(report, Integer.MAX_VALUE)), describe(dependencies));
+    }
+
+    @Test
+    public void decodesTheMarkers()
+    {
+        var dependencies = parse("""
+                compileClasspath - Compile classpath for source set 'main'.
+                +--- org.slf4j:slf4j-api:2.0.9 (*)
+                +--- com.google.guava:guava:31.0-jre -> 32.1.3-jre
+                +--- org.yaml:snakeyaml -> 2.2
+                +--- org.apache.logging.log4j:log4j-api:{strictly 2.21.1} -> 2.21.1 (c)
+                +--- org.mockito:mockito-core:5.7.0 (n)
+                +--- org.springframework.boot:spring-boot-starter (n)
+                +--- project :core
+                |    \\--- org.slf4j:slf4j-simple:2.0.9
+                \\--- org.springframework.boot:spring-boot-starter-web
+
+                annotationProcessor - Annotation processors and their dependencies for source set 'main'.
+                \\--- org.projectlombok:lombok:1.18.30
+                """.getBytes(UTF_8), Integer.MAX_VALUE);
+
+        assertEquals(List.of("org.slf4j:slf4j-api:2.0.9",
+                             "com.google.guava:guava:31.0-jre",
+                             "org.yaml:snakeyaml:2.2",
+                             "org.apache.logging.log4j:log4j-api:2.21.1",
+                             "org.mockito:mockito-core:5.7.0",
+                             "org.springframework.boot:spring-boot-starter-web"),
+                     dependencies.stream().map(Dependency::toString).toList());
+        assertTrue(dependencies.stream().allMatch(e -> "compileClasspath".equals(e.getConfiguration())));
+        assertNull(dependencies.get(5).getVersion());
+    }
+
+    @Test
+    public void acceptsWindowsLineEndingsAndAMissingLastLineEnd()
+    {
+        var dependencies = parse("runtimeClasspath - Runtime classpath of source set 'main'.\r\n+--- a:b:1.0\r\n\\--- c:d:2.0"
+                .getBytes(UTF_8), Integer.MAX_VALUE);
+
+        assertEquals(List.of("a:b:1.0", "c:d:2.0"), dependencies.stream().map(Dependency::toString).toList());
+    }
+
+    private static List<Dependency> parse(byte[] report, int chunkSize)
+    {
+        var dependencies = new ArrayList<Dependency>();
+        var parser = new DependencyReportParser(dependencies::add);
+        for (var off = 0; off < report.length; off += chunkSize)
+        {
+            parser.write(report, off, Math.min(chunkSize, report.length - off));
+        }
+        parser.close();
+        return dependencies;
+    }
+
+    private static List<String> describe(List<Dependency> dependencies)
+    {
+        return dependencies.stream().map(e -> e.getConfiguration() + " " + e).toList();
+    }
+
+    private static boolean find(List<Dependency> dependencies, String coordinates)
+    {
+        return dependencies.stream().anyMatch(e -> coordinates.equals(e.toString()));
+    }
+
+    private static byte[] readFixture() throws IOException
+    {
+        try (InputStream in = Objects.requireNonNull(DependencyReportParserTest.class.getResourceAsStream("/fixtures/dependencies-report.txt")))
+        {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.tarn2206.tooling;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MavenMetadataTest
+{
+    @Test
+    public void readsVersioning() throws IOException
+    {
+        var metadata = parse("""
+            <?xml version="1.0" encoding="UTF-8"?>
+            <metadata>
+              <groupId>org.slf4j</groupId>
+              <artifactId>slf4j-api</artifactId>
+              <versioning>
+                <latest>2.1.0-alpha1</latest>
+                <release>2.0.17</release>
+                <versions>
+                  <version>1.7.36</version>
+                  <version> 2.0.17 </version>
+                  <version>2.1.0-alpha1</version>
+                </versions>
+                <lastUpdated>20250225163001</lastUpdated>
+              </versioning>
+            </metadata>
+            """);
+
+        assertEquals("2.1.0-alpha1", metadata.latest());
+        assertEquals("2.0.17", metadata.release());
+        assertEquals("20250225163001", metadata.lastUpdated());
+        assertEquals(List.of("1.7.36", "2.0.17", "2.1.0-alpha1"), metadata.versions());
+    }
+
+    @Test
+    public void ignoresVersionOutsideVersioning() throws IOException
+    {
+        var metadata = parse("""
+            <metadata>
+              <groupId>com.example</groupId>
+              <artifactId>example</artifactId>
+              <version>0.9</version>
+              <versioning>
+                <versions><version>1.0</version></versions>
+              </versioning>
+            </metadata>
+            """);
+
+        assertEquals(List.of("1.0"), metadata.versions());
+        assertNull(metadata.latest());
+        assertNull(metadata.release());
+    }
+
+    @Test
+    public void readsMetadataWithoutVersioning() throws IOException
+    {
+        var metadata = parse("<metadata><groupId>com.example</groupId></metadata>");
+
+        assertTrue(metadata.versions().isEmpty());
+        assertNull(metadata.lastUpdated());
+    }
+
+    @Test
+    public void failsOnInvalidXml()
+    {
+        assertThrows(IOException.class, () -> parse("<metadata><versioning>"));
+        assertThrows(IOException.class, () -> parse("<html>Not Found</body>"));
+    }
+
+    @Test
+    public void doesNotResolveExternalEntities()
+    {
+        assertThrows(IOException.class, () -> parse("""
+            <?xml version="1.0"?>
+            <!DOCTYPE metadata [<!ENTITY secret SYSTEM "file:///etc/passwd">]>
+            <metadata><versioning><latest>&secret;</latest></versioning></metadata>
+            """));
+    }
+
+    private static MavenMetadata parse(String xml) throws IOException
+    {
+        return MavenMetadata.parse(new ByteArrayInputStream(xml.getBytes(UTF_8)));
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.tarn2206.tooling;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tarn2206.AppSettings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Update checks against {@link StubMavenRepository}, the latest stable version of slf4j-api in it is 2.0.17.
+ */
+public class MavenUtilsTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private final List<StubMavenRepository> repositories = new ArrayList<>();
+    private AppSettings settings;
+
+    @Before
+    public void setUp()
+    {
+        settings = new AppSettings();
+        settings.setUnstablePatterns("alpha, beta, -M, incubator, rc, snapshot");
+        settings.setMaxRequestsPerSecond(0);
+    }
+
+    @After
+    public void tearDown()
+    {
+        repositories.forEach(StubMavenRepository::close);
+    }
+
+    @Test
+    public void findsLatestStableVersion() throws Exception
+    {
+        var stub = startRepository();
+        useRepos(repo("Stub", stub.getUrl()));
+
+        var dependency = check();
+
+        assertNull(dependency.getError());
+        assertEquals("2.0.17", dependency.getLatestVersion());
+        assertEquals("Stub", dependency.getRepository());
+    }
+
+    @Test
+    public void decodesGzipAndPlainBodies() throws Exception
+    {
+        var gzip = startRepository().withGzip(true);
+        var plain = startRepository().withGzip(false);
+
+        useRepos(repo("Gzip", gzip.getUrl()));
+        assertEquals("2.0.17", check().getLatestVersion());
+        useRepos(repo("Plain", plain.getUrl()));
+        assertEquals("2.0.17", check().getLatestVersion());
+    }
+
+    @Test
+    public void reportsUnauthorizedWithoutCredentials() throws Exception
+    {
+        var stub = startRepository().withBasicAuth("user", "secret");
+        useRepos(repo("Private", stub.getUrl()));
+
+        var dependency = check();
+
+        assertEquals("Unauthorized", dependency.getError());
+        assertNull(dependency.getLatestVersion());
+    }
+
+    @Test
+    public void sendsCredentialsOfUrl() throws Exception
+    {
+        var stub = startRepository().withBasicAuth("user", "secret");
+        useRepos(repo("Private", stub.getUrl("user", "secret")));
+
+        var dependency = check();
+
+        assertNull(dependency.getError());
+        assertEquals("2.0.17", dependency.getLatestVersion());
+    }
+
+    @Test
+    public void failsOverAfterNotFound() throws Exception
+    {
+        var first = startRepository().withErrors(1, 0);
+        var second = startRepository();
+        useRepos(repo("First", first.getUrl()), repo("Second", second.getUrl()));
+
+        var dependency = check();
+
+        assertNull(dependency.getError());
+        assertEquals("2.0.17", dependency.getLatestVersion());
+        assertEquals("Second", dependency.getRepository());
+        assertEquals(1, first.getRequestCount());
+    }
+
+    @Test
+    public void failsOverAfterServerError() throws Exception
+    {
+        var first = startRepository().withErrors(0, 1);
+        var second = startRepository();
+        useRepos(repo("First", first.getUrl()), repo("Second", second.getUrl()));
+
+        var dependency = check();
+
+        assertNull(dependency.getError());
+        assertEquals("2.0.17", dependency.getLatestVersion());
+        assertEquals("Second", dependency.getRepository());
+    }
+
+    @Test
+    public void doesNotKeepServerErrors() throws Exception
+    {
+        var stub = startRepository().withErrors(0, 1);
+        useRepos(repo("Stub", stub.getUrl()));
+        settings.setCacheTtlMinutes(60);
+
+        assertEquals("HTTP 503", check().getError());
+
+        stub.withErrors(0, 0);
+        var dependency = check();
+
+        assertNull(dependency.getError());
+        assertEquals("2.0.17", dependency.getLatestVersion());
+        assertEquals(2, stub.getRequestCount());
+    }
+
+    @Test
+    public void timesOutOnSlowBody() throws Exception
+    {
+        var stub = startRepository().withGzip(false).withSlowBody(100);
+        var repo = repo("Slow", stub.getUrl());
+        repo.setConnectTimeout(1);
+        repo.setReadTimeout(1);
+        useRepos(repo);
+
+        var start = System.nanoTime();
+        var dependency = check();
+        var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("Timeout", dependency.getError());
+        assertNull(dependency.getLatestVersion());
+        assertTrue("took " + elapsed + " ms", elapsed < 5000);
+    }
+
+    @Test
+    public void moduleWithOnlyUnstableVersionsIsFound() throws Exception
+    {
+        var root = temporaryFolder.newFolder("repository").toPath();
+        var dir = Files.createDirectories(root.resolve("org/example/preview"));
+        Files.writeString(dir.resolve("maven-metadata.xml"), """
+                <metadata>
+                  <groupId>org.example</groupId>
+                  <artifactId>preview</artifactId>
+                  <versioning>
+                    <versions>
+                      <version>1.0-beta1</version>
+                      <version>1.0-rc1</version>
+                    </versions>
+                  </versioning>
+                </metadata>
+                """);
+        var first = startRepository().withErrors(1, 0);
+        var second = startRepository(root);
+        useRepos(repo("First", first.getUrl()), repo("Second", second.getUrl()));
+        settings.setCacheTtlMinutes(0);
+
+        var dependency = check(new Dependency("org.example", "preview", "0.9"));
+        assertNull(dependency.getError());
+        assertEquals("Second", dependency.getRepository());
+
+        // the router skips the first repository now
+        Thread.sleep(5);
+        dependency = check(new Dependency("org.example", "preview", "0.9"));
+        assertNull(dependency.getError());
+        assertNull(dependency.getLatestVersion());
+        assertEquals("Second", dependency.getRepository());
+        assertEquals(1, first.getRequestCount());
+    }
+
+    private StubMavenRepository startRepository() throws IOException, URISyntaxException
+    {
+        return startRepository(Path.of(Objects.requireNonNull(getClass().getResource("/repository"), "repository").toURI()));
+    }
+
+    private StubMavenRepository startRepository(Path root) throws IOException
+    {
+        var stub = new StubMavenRepository(root);
+        repositories.add(stub);
+        return stub;
+    }
+
+    private static AppSettings.Repo repo(String name, String url)
+    {
+        return new AppSettings.Repo(true, name, url);
+    }
+
+    private void useRepos(AppSettings.Repo... repos)
+    {
+        settings.setRepos(List.of(repos));
+    }
+
+    private Dependency check() throws Exception
+    {
+        return check(new Dependency("org.slf4j", "slf4j-api", "1.7.0"));
+    }
+
+    private Dependency check(Dependency dependency) throws Exception
+    {
+        return MavenUtils.checkForUpdate(dependency, settings, RefreshMetrics.NONE).get(10, TimeUnit.SECONDS);
+    }
+}
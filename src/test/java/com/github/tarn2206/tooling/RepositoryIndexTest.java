@@ -0,0 +1,70 @@
+package com.github.tarn2206.tooling;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RepositoryIndexTest
+{
+    private static final String URL = "https://repo.example.com/index.txt";
+    private static final String DUMP = """
+            # generated 2025-06-01
+            org.slf4j:slf4j-api 1.7.36 2.0.16 2.0.17
+
+            com.google.guava:guava 33.3.1-jre,33.4.0-jre
+              org.jetbrains.kotlin:kotlin-stdlib\t2.1.20, 2.2.0-RC\s
+            org.example:no-versions
+            not-a-module 1.0
+            """;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void parsesTheDump() throws IOException
+    {
+        var modules = parse(DUMP);
+
+        assertEquals(3, modules.size());
+        assertArrayEquals(new String[] { "1.7.36", "2.0.16", "2.0.17" }, modules.get("org.slf4j:slf4j-api"));
+        assertArrayEquals(new String[] { "33.3.1-jre", "33.4.0-jre" }, modules.get("com.google.guava:guava"));
+        assertArrayEquals(new String[] { "2.1.20", "2.2.0-RC" }, modules.get("org.jetbrains.kotlin:kotlin-stdlib"));
+    }
+
+    @Test
+    public void looksUpTheVersionsOfAModule() throws IOException
+    {
+        var index = new RepositoryIndex(URL, temporaryFolder.getRoot());
+        index.update(parse(DUMP), "\"v1\"", null);
+
+        assertEquals(List.of("33.3.1-jre", "33.4.0-jre"), index.getVersions(new ModuleId("com.google.guava", "guava")));
+        assertNull(index.getVersions(new ModuleId("com.google.guava", "failureaccess")));
+        assertNull(index.getVersions(new ModuleId("org.example", "no-versions")));
+    }
+
+    @Test
+    public void readsTheIndexKeptOnDisk() throws IOException
+    {
+        new RepositoryIndex(URL, temporaryFolder.getRoot()).update(parse(DUMP), "\"v1\"", "Sun, 01 Jun 2025 00:00:00 GMT");
+
+        var index = new RepositoryIndex(URL, temporaryFolder.getRoot());
+        index.load();
+
+        assertEquals(List.of("1.7.36", "2.0.16", "2.0.17"), index.getVersions(new ModuleId("org.slf4j", "slf4j-api")));
+        assertEquals(List.of("2.1.20", "2.2.0-RC"), index.getVersions(new ModuleId("org.jetbrains.kotlin", "kotlin-stdlib")));
+    }
+
+    private static Map<String, String[]> parse(String dump) throws IOException
+    {
+        return RepositoryIndex.parse(new ByteArrayInputStream(dump.getBytes(UTF_8)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.tarn2206.tooling;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tarn2206.AppSettings;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class RepositoryRouterTest
+{
+    private static final ModuleId SLF4J_API = new ModuleId("org.slf4j", "slf4j-api");
+    private static final ModuleId SLF4J_SIMPLE = new ModuleId("org.slf4j", "slf4j-simple");
+    private static final ModuleId GUAVA = new ModuleId("com.google.guava", "guava");
+
+    private final AppSettings.Repo central = new AppSettings.Repo(true, "Central", "https://repo.maven.apache.org/maven2");
+    private final AppSettings.Repo google = new AppSettings.Repo(true, "Google", "https://maven.google.com");
+    private final AppSettings.Repo company = new AppSettings.Repo(true, "Company", "https://repo.example.com/maven");
+    private final List<AppSettings.Repo> repos = List.of(central, google, company);
+    private long now = 1_000_000;
+    private final RepositoryRouter router = new RepositoryRouter(() -> now);
+
+    @Test
+    public void keepsTheOrderOfTheSettings()
+    {
+        assertEquals(repos, router.route(SLF4J_API, repos));
+    }
+
+    @Test
+    public void asksTheRepositoryThatServedTheGroupFirst()
+    {
+        router.found(SLF4J_API, company);
+
+        assertEquals(List.of(company, central, google), router.route(SLF4J_SIMPLE, repos));
+        assertEquals(repos, router.route(GUAVA, repos));
+    }
+
+    @Test
+    public void forgetsTheGroupAfterADay()
+    {
+        router.found(SLF4J_API, company);
+        now += TimeUnit.DAYS.toMillis(1) + 1;
+
+        assertEquals(repos, router.route(SLF4J_SIMPLE, repos));
+    }
+
+    @Test
+    public void skipsTheRepositoriesThatDoNotHaveTheModule()
+    {
+        router.notFound(SLF4J_API, central);
+
+        assertEquals(List.of(google, company), router.route(SLF4J_API, repos));
+        assertEquals(repos, router.route(SLF4J_SIMPLE, repos));
+    }
+
+    @Test
+    public void asksAgainAfterSixHours()
+    {
+        router.notFound(SLF4J_API, central);
+        now += TimeUnit.HOURS.toMillis(6);
+        assertEquals(List.of(google, company), router.route(SLF4J_API, repos));
+
+        now += 1;
+        assertEquals(repos, router.route(SLF4J_API, repos));
+    }
+
+    @Test
+    public void foundClearsNotFound()
+    {
+        router.notFound(SLF4J_API, google);
+        router.found(SLF4J_API, google);
+
+        assertEquals(List.of(google, central, company), router.route(SLF4J_API, repos));
+    }
+
+    @Test
+    public void clearForgetsEverything()
+    {
+        router.found(SLF4J_API, company);
+        router.notFound(SLF4J_API, central);
+        router.clear();
+
+        assertEquals(repos, router.route(SLF4J_API, repos));
+    }
+}
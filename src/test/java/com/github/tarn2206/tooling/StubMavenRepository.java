@@ -0,0 +1,252 @@
+package com.github.tarn2206.tooling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for a Maven repository on the loopback interface, so {@link MavenUtils} can be measured without
+ * network. It serves the {@code maven-metadata.xml} files of a directory, and can inject latency, 404s, 503s, slow
+ * bodies and basic auth challenges.
+ */
+final class StubMavenRepository implements AutoCloseable
+{
+    private static final String METADATA = "maven-metadata.xml";
+    private static final int SLOW_CHUNK_SIZE = 512;
+
+    static
+    {
+        // read once when the first server starts, without it Nagle's algorithm adds about 40 ms to every small response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final Path root;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    /** Compressed once, so the stub does not compete with the client for the CPU. */
+    private final Map<String, byte[]> gzipped = new ConcurrentHashMap<>();
+    private volatile byte[] fallback;
+    private volatile int latencyMillis;
+    private volatile int jitterMillis;
+    private volatile double notFoundRate;
+    private volatile double serverErrorRate;
+    private volatile int slowBodyBytesPerSecond;
+    private volatile String credentials;
+    private volatile boolean gzip = true;
+
+    /**
+     * @param root the repository layout, e.g., {@code org/slf4j/slf4j-api/maven-metadata.xml}
+     */
+    StubMavenRepository(Path root) throws IOException
+    {
+        this.root = root.toAbsolutePath().normalize();
+        executor = Executors.newCachedThreadPool(runnable ->
+        {
+            var thread = new Thread(runnable, "stub-maven-repository");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String getUrl()
+    {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return the URL with the credentials in it, the way private repositories are configured
+     */
+    String getUrl(String user, String password)
+    {
+        return "http://" + user + ":" + password + "@127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    long getRequestCount()
+    {
+        return requests.get();
+    }
+
+    /**
+     * Serves the metadata for every module that is not in the directory, to load test with any number of artifacts.
+     */
+    StubMavenRepository withFallback(Path metadata)
+    {
+        try
+        {
+            fallback = Files.readAllBytes(metadata);
+            gzipped.clear();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Every response waits {@code latencyMillis} plus a random part up to {@code jitterMillis} before the headers.
+     */
+    StubMavenRepository withLatency(int latencyMillis, int jitterMillis)
+    {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * @param notFoundRate the share of requests answered with 404, from 0 to 1
+     * @param serverErrorRate the share of requests answered with 503, from 0 to 1
+     */
+    StubMavenRepository withErrors(double notFoundRate, double serverErrorRate)
+    {
+        this.notFoundRate = notFoundRate;
+        this.serverErrorRate = serverErrorRate;
+        return this;
+    }
+
+    /**
+     * Sends the bodies in small chunks at this rate, 0 sends them at once.
+     */
+    StubMavenRepository withSlowBody(int bytesPerSecond)
+    {
+        this.slowBodyBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Answers 401 with a basic auth challenge unless the request has these credentials.
+     */
+    StubMavenRepository withBasicAuth(String user, String password)
+    {
+        this.credentials = "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(UTF_8));
+        return this;
+    }
+
+    StubMavenRepository withGzip(boolean gzip)
+    {
+        this.gzip = gzip;
+        return this;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        requests.incrementAndGet();
+        try (exchange)
+        {
+            if (credentials != null && !credentials.equals(exchange.getRequestHeaders().getFirst("Authorization")))
+            {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"stub\"");
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            var random = ThreadLocalRandom.current();
+            var delay = latencyMillis + (jitterMillis > 0 ? random.nextInt(jitterMillis + 1) : 0);
+            if (delay > 0) Thread.sleep(delay);
+
+            var dice = random.nextDouble();
+            if (dice < notFoundRate)
+            {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (dice < notFoundRate + serverErrorRate)
+            {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            var path = exchange.getRequestURI().getPath();
+            var body = find(path);
+            if (body == null)
+            {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            var acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip"))
+            {
+                var plain = body;
+                body = gzipped.computeIfAbsent(body == fallback ? "" : path, key -> gzip(plain));
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            write(exchange, body);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] find(String path) throws IOException
+    {
+        if (!path.endsWith("/" + METADATA)) return null;
+
+        var file = root.resolve(path.substring(1)).normalize();
+        if (file.startsWith(root) && Files.isRegularFile(file)) return Files.readAllBytes(file);
+        return fallback;
+    }
+
+    private void write(HttpExchange exchange, byte[] body) throws IOException, InterruptedException
+    {
+        var out = exchange.getResponseBody();
+        if (slowBodyBytesPerSecond <= 0)
+        {
+            out.write(body);
+            return;
+        }
+
+        var pause = Math.max(1, 1000L * SLOW_CHUNK_SIZE / slowBodyBytesPerSecond);
+        for (var off = 0; off < body.length; off += SLOW_CHUNK_SIZE)
+        {
+            out.write(body, off, Math.min(SLOW_CHUNK_SIZE, body.length - off));
+            out.flush();
+            Thread.sleep(pause);
+        }
+    }
+
+    private static byte[] gzip(byte[] body)
+    {
+        var bytes = new ByteArrayOutputStream(body.length / 4);
+        try (var out = new GZIPOutputStream(bytes))
+        {
+            out.write(body);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
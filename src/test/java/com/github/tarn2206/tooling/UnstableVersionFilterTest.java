@@ -0,0 +1,84 @@
+package com.github.tarn2206.tooling;
+
+import org.junit.Test;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UnstableVersionFilterTest
+{
+    private static final String UNSTABLE = "alpha, beta, -M, incubator, rc, snapshot";
+
+    @Test
+    public void matchesSubstringsIgnoringCase()
+    {
+        var filter = UnstableVersionFilter.compile(UNSTABLE, null);
+
+        assertTrue(filter.isStable("org.slf4j", "2.0.17"));
+        assertFalse(filter.isStable("org.slf4j", "2.1.0-alpha1"));
+        assertFalse(filter.isStable("org.springframework", "6.2.0-RC1"));
+        assertFalse(filter.isStable("org.springframework", "6.2.0-M3"));
+        assertFalse(filter.isStable("com.example", "1.0-SNAPSHOT"));
+    }
+
+    @Test
+    public void matchesRegularExpressionsBetweenSlashes()
+    {
+        var filter = UnstableVersionFilter.compile("/-M\\d+$/, /^\\d+\\.\\d+,\\d+$/", null);
+
+        assertFalse(filter.isStable("org.springframework", "6.2.0-M3"));
+        assertTrue(filter.isStable("org.springframework", "6.2.0-MR"));
+        assertFalse(filter.isStable("com.example", "1.2,3"));
+    }
+
+    @Test
+    public void invalidRegularExpressionIsMatchedAsText()
+    {
+        var filter = UnstableVersionFilter.compile("/[/", null);
+
+        assertFalse(filter.isStable("com.example", "1.0/[/"));
+        assertTrue(filter.isStable("com.example", "1.0"));
+    }
+
+    @Test
+    public void blankVersionIsNotStable()
+    {
+        var filter = UnstableVersionFilter.compile(UNSTABLE, null);
+
+        assertFalse(filter.isStable("com.example", null));
+        assertFalse(filter.isStable("com.example", " "));
+    }
+
+    @Test
+    public void overrideAllowsPatternsForGroupPrefix()
+    {
+        var filter = UnstableVersionFilter.compile(UNSTABLE, "org.jetbrains.kotlinx: rc, beta");
+
+        assertTrue(filter.isStable("org.jetbrains.kotlinx", "1.10.0-RC"));
+        assertTrue(filter.isStable("org.jetbrains.kotlinx.coroutines", "1.10.0-beta"));
+        assertFalse(filter.isStable("org.jetbrains.kotlinx", "1.10.0-alpha"));
+        assertFalse(filter.isStable("org.jetbrains.kotlinxy", "1.10.0-RC"));
+        assertFalse(filter.isStable("org.jetbrains.kotlin", "2.1.0-RC"));
+    }
+
+    @Test
+    public void longestMatchingGroupTakesPrecedence()
+    {
+        var filter = UnstableVersionFilter.compile(UNSTABLE, "org.jetbrains: rc; org.jetbrains.kotlinx: beta; com.example: alpha");
+
+        assertTrue(filter.isStable("org.jetbrains.kotlin", "2.1.0-RC"));
+        assertFalse(filter.isStable("org.jetbrains.kotlin", "2.1.0-beta"));
+        assertTrue(filter.isStable("org.jetbrains.kotlinx", "1.10.0-beta"));
+        // the longer group replaces the shorter one, it does not add to it
+        assertFalse(filter.isStable("org.jetbrains.kotlinx", "1.10.0-RC"));
+        assertFalse(filter.isStable("com.google", "1.0-alpha"));
+    }
+
+    @Test
+    public void entriesWithoutGroupAreIgnored()
+    {
+        var filter = UnstableVersionFilter.compile(UNSTABLE, "rc; : beta");
+
+        assertFalse(filter.isStable("com.example", "1.0-RC1"));
+        assertFalse(filter.isStable("com.example", "1.0-beta"));
+    }
+}
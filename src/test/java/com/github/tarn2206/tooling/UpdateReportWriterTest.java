@@ -0,0 +1,142 @@
+package com.github.tarn2206.tooling;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class UpdateReportWriterTest
+{
+    private static final File BASE_DIR = new File("/work/shop").getAbsoluteFile();
+
+    @Test
+    public void writesJson() throws IOException
+    {
+        var expected = """
+                {
+                  "dependencies": [
+                    {
+                      "project": "shop",
+                      "configuration": "compileClasspath",
+                      "group": "org.slf4j",
+                      "name": "slf4j-api",
+                      "version": "1.7.36",
+                      "latestVersion": "2.0.17",
+                      "repository": "Maven Central"
+                    },
+                    {
+                      "project": "shop:web",
+                      "configuration": "runtimeClasspath",
+                      "group": "com.example",
+                      "name": "internal",
+                      "version": "1.0",
+                      "error": "Not Found"
+                    }
+                  ]
+                }""";
+
+        assertEquals(expected, write(UpdateReportWriter.Format.JSON));
+    }
+
+    @Test
+    public void writesCsv() throws IOException
+    {
+        var expected = "project,configuration,group,name,version,latestVersion,repository,error\r\n"
+                       + "shop,compileClasspath,org.slf4j,slf4j-api,1.7.36,2.0.17,Maven Central,\r\n"
+                       + "shop:web,runtimeClasspath,com.example,internal,1.0,,,Not Found\r\n";
+
+        assertEquals(expected, write(UpdateReportWriter.Format.CSV));
+    }
+
+    @Test
+    public void quotesCsvFields() throws IOException
+    {
+        var dependency = new Dependency("com.example", "internal", "1.0");
+        dependency.setRepository("Company, Inc.");
+        dependency.setError("Server says \"no\"\nretry later");
+        var out = new StringWriter();
+        try (var writer = UpdateReportWriter.create(UpdateReportWriter.Format.CSV, out, null))
+        {
+            writer.startProject("shop", null);
+            writer.write(dependency);
+        }
+
+        var lines = out.toString().split("\r\n");
+        assertEquals("shop,,com.example,internal,1.0,,\"Company, Inc.\",\"Server says \"\"no\"\"\nretry later\"", lines[1]);
+    }
+
+    @Test
+    public void writesSarif() throws IOException
+    {
+        var sarif = JsonParser.parseString(write(UpdateReportWriter.Format.SARIF)).getAsJsonObject();
+
+        assertEquals("2.1.0", sarif.get("version").getAsString());
+        assertEquals("https://json.schemastore.org/sarif-2.1.0.json", sarif.get("$schema").getAsString());
+        var runs = sarif.getAsJsonArray("runs");
+        assertEquals(1, runs.size());
+        var run = runs.get(0).getAsJsonObject();
+        var driver = run.getAsJsonObject("tool").getAsJsonObject("driver");
+        assertEquals("Gradle Dependency Updates", driver.get("name").getAsString());
+        var rules = driver.getAsJsonArray("rules");
+        assertEquals("outdated-dependency", rules.get(0).getAsJsonObject().get("id").getAsString());
+        assertEquals("update-check-failed", rules.get(1).getAsJsonObject().get("id").getAsString());
+
+        var results = run.getAsJsonArray("results");
+        assertEquals(2, results.size());
+        var outdated = results.get(0).getAsJsonObject();
+        assertEquals("outdated-dependency", outdated.get("ruleId").getAsString());
+        assertEquals("warning", outdated.get("level").getAsString());
+        assertEquals("org.slf4j:slf4j-api:1.7.36 can be updated to 2.0.17", outdated.getAsJsonObject("message").get("text").getAsString());
+        var artifact = location(outdated).getAsJsonObject("physicalLocation").getAsJsonObject("artifactLocation");
+        assertEquals("build.gradle", artifact.get("uri").getAsString());
+        assertEquals("%SRCROOT%", artifact.get("uriBaseId").getAsString());
+        assertEquals("shop", location(outdated).getAsJsonArray("logicalLocations").get(0).getAsJsonObject()
+                                               .get("fullyQualifiedName").getAsString());
+
+        var failed = results.get(1).getAsJsonObject();
+        assertEquals("update-check-failed", failed.get("ruleId").getAsString());
+        assertEquals("note", failed.get("level").getAsString());
+        assertEquals("com.example:internal:1.0: Not Found", failed.getAsJsonObject("message").get("text").getAsString());
+        assertFalse(location(failed).has("physicalLocation"));
+    }
+
+    private static JsonObject location(JsonObject result)
+    {
+        return result.getAsJsonArray("locations").get(0).getAsJsonObject();
+    }
+
+    /**
+     * Two projects, the root with an outdated dependency and a project dependency, the subproject without build file
+     * and with a failed check.
+     */
+    private static String write(UpdateReportWriter.Format format) throws IOException
+    {
+        var outdated = new Dependency("org.slf4j", "slf4j-api", "1.7.36");
+        outdated.setConfiguration("compileClasspath");
+        outdated.setLatestVersion("2.0.17");
+        outdated.setRepository("Maven Central");
+        var project = new Dependency("project ", ":core", null);
+        var failed = new Dependency("com.example", "internal", "1.0");
+        failed.setConfiguration("runtimeClasspath");
+        failed.setError("Not Found");
+
+        var out = new StringWriter();
+        try (var writer = UpdateReportWriter.create(format, out, BASE_DIR))
+        {
+            writer.startProject("shop", new File(BASE_DIR, "build.gradle"));
+            for (var dependency : List.of(outdated, project))
+            {
+                writer.write(dependency);
+            }
+            writer.startProject("shop:web", null);
+            writer.write(failed);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.tarn2206.tooling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateResultCacheTest
+{
+    private static final long TTL = TimeUnit.HOURS.toMillis(1);
+    private static final UpdateResultCache.Result FOUND = new UpdateResultCache.Result("2.0", "central", null, true);
+    private static final UpdateResultCache.Result UNAVAILABLE = new UpdateResultCache.Result(null, null, "Service Unavailable", false);
+
+    private final UpdateResultCache cache = new UpdateResultCache();
+    private final List<CompletableFuture<UpdateResultCache.Result>> lookups = new ArrayList<>();
+    private final Supplier<CompletableFuture<UpdateResultCache.Result>> lookup = () ->
+    {
+        var future = new CompletableFuture<UpdateResultCache.Result>();
+        lookups.add(future);
+        return future;
+    };
+
+    @Test
+    public void callersOfTheSameKeyShareOneLookup()
+    {
+        var first = cache.get("a:b", TTL, lookup);
+        var second = cache.get("a:b", TTL, lookup);
+        var other = cache.get("c:d", TTL, lookup);
+
+        assertEquals(2, lookups.size());
+        lookups.get(0).complete(FOUND);
+        assertSame(FOUND, first.join());
+        assertSame(FOUND, second.join());
+        assertFalse(other.isDone());
+    }
+
+    @Test
+    public void keepsDefiniteResultsForTheTtl()
+    {
+        cache.get("a:b", TTL, lookup);
+        lookups.get(0).complete(FOUND);
+
+        assertSame(FOUND, cache.get("a:b", TTL, lookup).join());
+        assertEquals(1, lookups.size());
+    }
+
+    @Test
+    public void looksUpAgainAfterTheTtl() throws InterruptedException
+    {
+        cache.get("a:b", TTL, lookup);
+        lookups.get(0).complete(FOUND);
+        Thread.sleep(5);
+
+        var again = cache.get("a:b", 1, lookup);
+
+        assertEquals(2, lookups.size());
+        assertFalse(again.isDone());
+    }
+
+    @Test
+    public void doesNotKeepResultsThatAreNotDefinite()
+    {
+        var first = cache.get("a:b", TTL, lookup);
+        var joined = cache.get("a:b", TTL, lookup);
+        lookups.get(0).complete(UNAVAILABLE);
+
+        assertSame(UNAVAILABLE, first.join());
+        assertSame(UNAVAILABLE, joined.join());
+        cache.get("a:b", TTL, lookup);
+        assertEquals(2, lookups.size());
+    }
+
+    @Test
+    public void doesNotKeepFailedLookups()
+    {
+        var first = cache.get("a:b", TTL, () -> { throw new IllegalArgumentException("bad url"); });
+
+        assertTrue(first.isCompletedExceptionally());
+        cache.get("a:b", TTL, lookup);
+        assertEquals(1, lookups.size());
+    }
+
+    @Test
+    public void cancellingOneOfTwoCallersKeepsTheLookup()
+    {
+        var first = cache.get("a:b", TTL, lookup);
+        var second = cache.get("a:b", TTL, lookup);
+
+        first.cancel(true);
+
+        assertFalse(lookups.get(0).isCancelled());
+        lookups.get(0).complete(FOUND);
+        assertSame(FOUND, second.join());
+    }
+
+    @Test
+    public void cancellingEveryCallerCancelsTheLookup()
+    {
+        var first = cache.get("a:b", TTL, lookup);
+        var second = cache.get("a:b", TTL, lookup);
+
+        first.cancel(true);
+        second.cancel(true);
+
+        assertTrue(lookups.get(0).isCancelled());
+        cache.get("a:b", TTL, lookup);
+        assertEquals(2, lookups.size());
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.tarn2206.tooling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VersionTest
+{
+    @Test
+    public void releaseCandidateIsLowerThanRelease()
+    {
+        assertLower("1.0-rc1", "1.0");
+        assertLower("1.0-RC1", "1.0-rc2");
+    }
+
+    @Test
+    public void finalIsLowerThanPlainRelease()
+    {
+        assertLower("1.0-final", "1.0");
+    }
+
+    @Test
+    public void snapshotIsHigherThanReleaseCandidate()
+    {
+        assertLower("1.0-rc1", "1.0-SNAPSHOT");
+    }
+
+    @Test
+    public void comparesNumbersNumerically()
+    {
+        assertLower("1.9.0-jre", "1.10.0-jre");
+        assertLower("1.9.0", "1.10.0-jre");
+        assertLower("2.0.9", "2.0.17");
+    }
+
+    @Test
+    public void extraNumericPartIsHigher()
+    {
+        assertLower("1.0", "1.0.1");
+        assertLower("1.0", "1.0.0.1");
+    }
+
+    @Test
+    public void ordersQualifiers()
+    {
+        var expected = List.of("1.0-dev", "1.0-alpha", "1.0-beta", "1.0-rc", "1.0-SNAPSHOT", "1.0-final", "1.0-GA",
+                               "1.0-RELEASE", "1.0-SP", "1.0", "1.0.1");
+        var reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+
+        var sorted = reversed.stream().map(Version::parse).sorted().map(Version::toString).toList();
+
+        assertEquals(expected, sorted);
+    }
+
+    @Test
+    public void separatorsAndDigitLetterBoundariesSplitTheSameWay()
+    {
+        assertEquals(0, Version.parse("1.0-rc1").compareTo(Version.parse("1.0.rc.1")));
+        assertEquals(Version.parse("1.0-rc1"), Version.parse("1_0+rc-1"));
+        assertEquals(Version.parse("1.0-rc1").hashCode(), Version.parse("1_0+rc-1").hashCode());
+    }
+
+    @Test
+    public void comparesOtherStringsAlphabetically()
+    {
+        assertLower("1.0-alpha", "1.0-beta");
+        assertLower("2.0-M1", "2.0-M2");
+    }
+
+    private static void assertLower(String lower, String higher)
+    {
+        var a = Version.parse(lower);
+        var b = Version.parse(higher);
+        assertTrue(lower + " < " + higher, a.compareTo(b) < 0);
+        assertTrue(higher + " > " + lower, b.compareTo(a) > 0);
+    }
+}